@@ -0,0 +1,72 @@
+package com.codecraft.swipesample;
+
+import android.support.v7.widget.RecyclerView;
+import android.util.SparseIntArray;
+
+/**
+ * A RecycledViewPool that keeps track of how many holders it holds, for the performance HUD.
+ */
+public class CountingRecycledViewPool extends RecyclerView.RecycledViewPool {
+
+    // RecycledViewPool.DEFAULT_MAX_SCRAP is private
+    private static final int DEFAULT_MAX = 5;
+
+    private final SparseIntArray mCounts = new SparseIntArray();
+    private final SparseIntArray mMax = new SparseIntArray();
+
+    @Override
+    public void setMaxRecycledViews(int viewType, int max) {
+        super.setMaxRecycledViews(viewType, max);
+        mMax.put(viewType, max);
+        mCounts.put(viewType, Math.min(mCounts.get(viewType), max));
+    }
+
+    @Override
+    public RecyclerView.ViewHolder getRecycledView(int viewType) {
+        RecyclerView.ViewHolder holder = super.getRecycledView(viewType);
+        if (holder != null) {
+            mCounts.put(viewType, Math.max(0, mCounts.get(viewType) - 1));
+        }
+        return holder;
+    }
+
+    @Override
+    public void putRecycledView(RecyclerView.ViewHolder scrap) {
+        super.putRecycledView(scrap);
+        int viewType = scrap.getItemViewType();
+        // the pool drops holders beyond its max
+        mCounts.put(viewType, Math.min(mCounts.get(viewType) + 1, getMax(viewType)));
+    }
+
+    @Override
+    public void clear() {
+        super.clear();
+        mCounts.clear();
+    }
+
+    /**
+     * @return the number of holders in the pool, all view types together
+     */
+    public int getCount() {
+        int count = 0;
+        for (int i = 0; i < mCounts.size(); i++) {
+            count += mCounts.valueAt(i);
+        }
+        return count;
+    }
+
+    /**
+     * @return how many holders the pool accepts, for the view types seen so far
+     */
+    public int getCapacity() {
+        int capacity = 0;
+        for (int i = 0; i < mCounts.size(); i++) {
+            capacity += getMax(mCounts.keyAt(i));
+        }
+        return capacity;
+    }
+
+    private int getMax(int viewType) {
+        return mMax.get(viewType, DEFAULT_MAX);
+    }
+}
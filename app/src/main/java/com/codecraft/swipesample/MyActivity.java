@@ -2,10 +2,15 @@ package com.codecraft.swipesample;
 
 import android.app.Activity;
 import android.os.Bundle;
+import android.view.Menu;
+import android.view.MenuItem;
+import android.view.View;
+import android.view.ViewGroup;
 
 
 public class MyActivity extends Activity {
 
+    private PerformanceHudView mHud;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -18,5 +23,46 @@ public class MyActivity extends Activity {
         }
     }
 
+    @Override
+    public boolean onCreateOptionsMenu(Menu menu) {
+        getMenuInflater().inflate(R.menu.my, menu);
+        return true;
+    }
+
+    @Override
+    public boolean onOptionsItemSelected(MenuItem item) {
+        if (item.getItemId() == R.id.action_hud) {
+            item.setChecked(!item.isChecked());
+            setHudShown(item.isChecked());
+            return true;
+        }
+        return super.onOptionsItemSelected(item);
+    }
+
+    private void setHudShown(boolean shown) {
+        RecyclerViewFragment fragment = (RecyclerViewFragment) getFragmentManager().findFragmentById(R.id.container);
+        if (!shown || fragment == null || fragment.getRecyclerView() == null) {
+            if (mHud != null) {
+                mHud.detach();
+                mHud.setVisibility(View.GONE);
+            }
+            return;
+        }
+
+        if (mHud == null) {
+            mHud = new PerformanceHudView(this);
+            addContentView(mHud, new ViewGroup.LayoutParams(ViewGroup.LayoutParams.MATCH_PARENT,
+                    ViewGroup.LayoutParams.WRAP_CONTENT));
+        }
+        mHud.attach(fragment.getRecyclerView(), fragment.getTouchListener());
+        mHud.setVisibility(View.VISIBLE);
+    }
 
+    @Override
+    protected void onDestroy() {
+        if (mHud != null) {
+            mHud.detach();
+        }
+        super.onDestroy();
+    }
 }
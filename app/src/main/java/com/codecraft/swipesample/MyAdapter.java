@@ -8,6 +8,7 @@ import android.view.ViewGroup;
 import android.widget.TextView;
 import android.widget.Toast;
 
+import com.codecraft.swipedismissrecyclerview.AdapterUpdateCoordinator;
 import com.codecraft.swipedismissrecyclerview.SwipeDismissTouchListener;
 
 import java.util.ArrayList;
@@ -17,6 +18,7 @@ import java.util.List;
 public class MyAdapter extends RecyclerView.Adapter<MyAdapter.TextViewHolder> implements SwipeDismissTouchListener.DismissCallbacks {
     private final Context mContext;
     private List<Item> items = new ArrayList<Item>();
+    private final AdapterUpdateCoordinator<Item> mCoordinator = new AdapterUpdateCoordinator<Item>(this, items);
 
     public MyAdapter(Context context) {
         for (int i = 0 ; i < 100 ; i++) {
@@ -35,6 +37,7 @@ public class MyAdapter extends RecyclerView.Adapter<MyAdapter.TextViewHolder> im
 
     @Override
     public void onBindViewHolder(TextViewHolder viewHolder, int i) {
+        mCoordinator.onBind(viewHolder, i);
         viewHolder.text.setText(items.get(i).getText());
         viewHolder.itemView.setAlpha(1);
     }
@@ -51,8 +54,7 @@ public class MyAdapter extends RecyclerView.Adapter<MyAdapter.TextViewHolder> im
 
     @Override
     public void onDismiss(View view, Object token) {
-        items.remove(((TextViewHolder)token).getPosition());
-        notifyItemRemoved(((TextViewHolder)token).getPosition());
+        mCoordinator.dismiss((TextViewHolder) token);
     }
 
     public class TextViewHolder extends RecyclerView.ViewHolder  {
@@ -76,8 +78,14 @@ public class MyAdapter extends RecyclerView.Adapter<MyAdapter.TextViewHolder> im
     }
 
     public void remove (RecyclerView.ViewHolder holder) {
-        items.remove(holder.getPosition());
-        notifyItemRemoved(holder.getPosition());
+        mCoordinator.dismiss(holder);
+    }
+
+    /**
+     * @return the coordinator through which background threads may change the items
+     */
+    public AdapterUpdateCoordinator<Item> getCoordinator() {
+        return mCoordinator;
     }
 
 }
\ No newline at end of file
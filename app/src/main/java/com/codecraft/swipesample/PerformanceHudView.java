@@ -0,0 +1,279 @@
+package com.codecraft.swipesample;
+
+import android.annotation.TargetApi;
+import android.content.Context;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Paint;
+import android.os.Build;
+import android.os.SystemClock;
+import android.support.v7.widget.RecyclerView;
+import android.view.Choreographer;
+import android.view.View;
+
+import com.codecraft.swipedismissrecyclerview.LogLinearHistogram;
+import com.codecraft.swipedismissrecyclerview.SwipeDismissRecyclerViewItemTouchListener;
+import com.codecraft.swipedismissrecyclerview.SwipeStatistics;
+
+/**
+ * A debug overlay showing how the swipes of a RecyclerView perform: the time of the last frames,
+ * the phase of the swipe listener, the fling catch, down to axis lock and lift to gone latencies,
+ * and the holders pinned, pooled and animated.
+ *
+ * Everything is drawn by onDraw on a single Canvas, without allocating.
+ */
+public class PerformanceHudView extends View {
+
+    private static final int FRAME_COUNT = 120;
+    private static final float GRAPH_MAX_MS = 50;
+    private static final float FRAME_BUDGET_MS = 1000f / 60;
+    // after that, a removal is not related to the last lift anymore
+    private static final long LIFT_TIMEOUT = 2000;
+    private static final String[] PHASES = {"idle", "touching", "swiping", "animating", "waiting"};
+
+    private final Paint mBackgroundPaint = new Paint();
+    private final Paint mBarPaint = new Paint();
+    private final Paint mSlowBarPaint = new Paint();
+    private final Paint mBudgetPaint = new Paint();
+    private final Paint mTextPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private final float mLineHeight;
+    private final float mGraphHeight;
+
+    private final float[] mFrameTimes = new float[FRAME_COUNT];
+    private final float[] mBars = new float[FRAME_COUNT * 4];
+    private final float[] mSlowBars = new float[FRAME_COUNT * 4];
+    private int mFrameHead;
+    private long mLastFrameTimeNanos;
+    private final Object mFrameCallback; // a Choreographer.FrameCallback, kept as an Object for API 15
+
+    private final StringBuilder mText = new StringBuilder();
+    private char[] mChars = new char[64];
+
+    private RecyclerView mRecyclerView;
+    private SwipeDismissRecyclerViewItemTouchListener mTouchListener;
+    private final SwipeStatistics mStatistics = new SwipeStatistics();
+    private long mLiftTime;
+    private boolean mRemovalPending;
+    private boolean mRemovalStarted;
+    private long mLiftToGone = -1;
+
+    private final RecyclerView.AdapterDataObserver mRemovalWatcher = new RecyclerView.AdapterDataObserver() {
+        @Override
+        public void onItemRangeRemoved(int positionStart, int itemCount) {
+            // the swipe listener consumes the up events of its swipes
+            mLiftTime = mTouchListener.getLastReleaseTime();
+            if (mLiftTime != 0 && SystemClock.uptimeMillis() - mLiftTime < LIFT_TIMEOUT) {
+                mRemovalPending = true;
+                mRemovalStarted = false;
+            }
+        }
+    };
+
+    public PerformanceHudView(Context context) {
+        super(context);
+        float density = context.getResources().getDisplayMetrics().density;
+        mLineHeight = 14 * density;
+        mGraphHeight = 60 * density;
+        mBackgroundPaint.setColor(0xB0000000);
+        mBarPaint.setColor(0xFF4CAF50);
+        mBarPaint.setStrokeWidth(2 * density);
+        mSlowBarPaint.setColor(0xFFF44336);
+        mSlowBarPaint.setStrokeWidth(2 * density);
+        mBudgetPaint.setColor(Color.WHITE);
+        mTextPaint.setColor(Color.WHITE);
+        mTextPaint.setTextSize(11 * density);
+        mFrameCallback = Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN ? new FrameCallback(this) : null;
+        setWillNotDraw(false);
+    }
+
+    /**
+     * Starts watching the given RecyclerView and its swipe listener.
+     */
+    public void attach(RecyclerView recyclerView, SwipeDismissRecyclerViewItemTouchListener touchListener) {
+        detach();
+        mRecyclerView = recyclerView;
+        mTouchListener = touchListener;
+        mStatistics.reset();
+        touchListener.setStatistics(mStatistics);
+        recyclerView.getAdapter().registerAdapterDataObserver(mRemovalWatcher);
+    }
+
+    public void detach() {
+        if (mRecyclerView == null) {
+            return;
+        }
+        mTouchListener.setStatistics(null);
+        mRecyclerView.getAdapter().unregisterAdapterDataObserver(mRemovalWatcher);
+        mRecyclerView = null;
+        mTouchListener = null;
+    }
+
+    @Override
+    protected void onAttachedToWindow() {
+        super.onAttachedToWindow();
+        mLastFrameTimeNanos = 0;
+        postFrameCallback();
+    }
+
+    @Override
+    protected void onDetachedFromWindow() {
+        super.onDetachedFromWindow();
+        if (mFrameCallback != null) {
+            ((FrameCallback) mFrameCallback).remove();
+        }
+    }
+
+    private void doFrame(long frameTimeNanos) {
+        if (mLastFrameTimeNanos != 0) {
+            mFrameTimes[mFrameHead] = (frameTimeNanos - mLastFrameTimeNanos) / 1000000f;
+            mFrameHead = (mFrameHead + 1) % FRAME_COUNT;
+        }
+        mLastFrameTimeNanos = frameTimeNanos;
+
+        if (mRemovalPending && mRecyclerView != null) {
+            // the removal animation only starts with the layout following the notification
+            RecyclerView.ItemAnimator animator = mRecyclerView.getItemAnimator();
+            boolean running = animator != null && animator.isRunning();
+            if (running) {
+                mRemovalStarted = true;
+            } else if (mRemovalStarted || animator == null) {
+                mLiftToGone = SystemClock.uptimeMillis() - mLiftTime;
+                mRemovalPending = false;
+            }
+        }
+        invalidate();
+        postFrameCallback();
+    }
+
+    private void postFrameCallback() {
+        if (mFrameCallback != null && getVisibility() == VISIBLE) {
+            ((FrameCallback) mFrameCallback).post();
+        }
+    }
+
+    @Override
+    public void setVisibility(int visibility) {
+        super.setVisibility(visibility);
+        if (visibility == VISIBLE) {
+            mLastFrameTimeNanos = 0;
+            postFrameCallback();
+        } else if (mFrameCallback != null) {
+            ((FrameCallback) mFrameCallback).remove();
+        }
+    }
+
+    @Override
+    protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
+        int height = (int) Math.ceil(mGraphHeight + 4 * mLineHeight + 1.5f * mLineHeight);
+        setMeasuredDimension(getDefaultSize(getSuggestedMinimumWidth(), widthMeasureSpec),
+                resolveSize(height, heightMeasureSpec));
+    }
+
+    @Override
+    protected void onDraw(Canvas canvas) {
+        float padding = mLineHeight / 2;
+        float textTop = mGraphHeight + 2 * padding;
+        canvas.drawRect(0, 0, getWidth(), getHeight(), mBackgroundPaint);
+        drawGraph(canvas, padding, padding, getWidth() - 2 * padding, mGraphHeight);
+
+        float y = textTop + mLineHeight - padding / 2;
+        mText.setLength(0);
+        mText.append("phase ");
+        if (mTouchListener != null) {
+            mText.append(PHASES[mTouchListener.getSwipePhase()]);
+        }
+        LogLinearHistogram flingCatch = mStatistics.getFlingCatch();
+        if (flingCatch.getCount() > 0) {
+            mText.append("   fling catch p50 ").append(flingCatch.getValueAtPercentile(50)).append("ms");
+        }
+        drawText(canvas, padding, y);
+
+        y += mLineHeight;
+        LogLinearHistogram downToLock = mStatistics.getDownToLock();
+        mText.setLength(0);
+        mText.append("down→lock p50 ").append(downToLock.getValueAtPercentile(50))
+                .append("ms max ").append(downToLock.getMax())
+                .append("ms   lift→gone ");
+        if (mLiftToGone >= 0) {
+            mText.append(mLiftToGone).append("ms");
+        } else {
+            mText.append('-');
+        }
+        drawText(canvas, padding, y);
+
+        y += mLineHeight;
+        mText.setLength(0);
+        if (mTouchListener != null) {
+            mText.append("pinned ").append(mTouchListener.getPinnedCount())
+                    .append("   animations ").append(mTouchListener.getRunningAnimationCount());
+        }
+        drawText(canvas, padding, y);
+
+        y += mLineHeight;
+        mText.setLength(0);
+        mText.append("pool ");
+        RecyclerView.RecycledViewPool pool = mRecyclerView != null ? mRecyclerView.getRecycledViewPool() : null;
+        if (pool instanceof CountingRecycledViewPool) {
+            CountingRecycledViewPool countingPool = (CountingRecycledViewPool) pool;
+            mText.append(countingPool.getCount()).append('/').append(countingPool.getCapacity());
+        } else {
+            mText.append('?');
+        }
+        drawText(canvas, padding, y);
+    }
+
+    private void drawGraph(Canvas canvas, float left, float top, float width, float height) {
+        float barWidth = width / FRAME_COUNT;
+        float bottom = top + height;
+        int bars = 0;
+        int slowBars = 0;
+        for (int i = 0; i < FRAME_COUNT; i++) {
+            // oldest frame on the left
+            float frameTime = mFrameTimes[(mFrameHead + i) % FRAME_COUNT];
+            float x = left + (i + 0.5f) * barWidth;
+            float barTop = bottom - Math.min(1f, frameTime / GRAPH_MAX_MS) * height;
+            float[] lines = frameTime > FRAME_BUDGET_MS * 1.5f ? mSlowBars : mBars;
+            int offset = lines == mSlowBars ? slowBars++ * 4 : bars++ * 4;
+            lines[offset] = x;
+            lines[offset + 1] = bottom;
+            lines[offset + 2] = x;
+            lines[offset + 3] = barTop;
+        }
+        canvas.drawLines(mBars, 0, bars * 4, mBarPaint);
+        canvas.drawLines(mSlowBars, 0, slowBars * 4, mSlowBarPaint);
+        float budgetY = bottom - FRAME_BUDGET_MS / GRAPH_MAX_MS * height;
+        canvas.drawLine(left, budgetY, left + width, budgetY, mBudgetPaint);
+    }
+
+    private void drawText(Canvas canvas, float x, float y) {
+        int length = mText.length();
+        if (length > mChars.length) {
+            mChars = new char[length];
+        }
+        mText.getChars(0, length, mChars, 0);
+        canvas.drawText(mChars, 0, length, x, y, mTextPaint);
+    }
+
+    @TargetApi(Build.VERSION_CODES.JELLY_BEAN)
+    private static class FrameCallback implements Choreographer.FrameCallback {
+        private final PerformanceHudView mView;
+
+        FrameCallback(PerformanceHudView view) {
+            mView = view;
+        }
+
+        void post() {
+            Choreographer.getInstance().removeFrameCallback(this);
+            Choreographer.getInstance().postFrameCallback(this);
+        }
+
+        void remove() {
+            Choreographer.getInstance().removeFrameCallback(this);
+        }
+
+        @Override
+        public void doFrame(long frameTimeNanos) {
+            mView.doFrame(frameTimeNanos);
+        }
+    }
+}
@@ -2,18 +2,22 @@ package com.codecraft.swipesample;
 
 import android.app.Fragment;
 import android.os.Bundle;
-import android.support.v7.widget.DefaultItemAnimator;
-import android.support.v7.widget.LinearLayoutManager;
 import android.support.v7.widget.RecyclerView;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
 
+import com.codecraft.swipedismissrecyclerview.AdaptiveQualityController;
+import com.codecraft.swipedismissrecyclerview.BindAheadLinearLayoutManager;
+import com.codecraft.swipedismissrecyclerview.SwipeDismissItemAnimator;
+import com.codecraft.swipedismissrecyclerview.SwipeDismissPoolManager;
 import com.codecraft.swipedismissrecyclerview.SwipeDismissRecyclerViewItemTouchListener;
 
 
 public class RecyclerViewFragment extends Fragment {
     private MyAdapter mAdapter;
+    private RecyclerView mRecyclerView;
+    private SwipeDismissRecyclerViewItemTouchListener mTouchListener;
 
     public RecyclerViewFragment() {
     }
@@ -22,16 +26,17 @@ public class RecyclerViewFragment extends Fragment {
     public View onCreateView(LayoutInflater inflater, ViewGroup container,
                              Bundle savedInstanceState) {
         View rootView = inflater.inflate(R.layout.fragment_my, container, false);
-        RecyclerView recyclerView = (RecyclerView) rootView.findViewById(R.id.list);
+        RecyclerView recyclerView = mRecyclerView = (RecyclerView) rootView.findViewById(R.id.list);
         recyclerView.setHasFixedSize(true);
-        recyclerView.setItemAnimator(new DefaultItemAnimator());
+        recyclerView.setRecycledViewPool(new CountingRecycledViewPool());
+        recyclerView.setItemAnimator(new SwipeDismissItemAnimator());
         recyclerView.addItemDecoration(new SpaceItemDecoration(RecyclerView.VERTICAL, 10));
 
-        LinearLayoutManager layoutManager = new LinearLayoutManager(getActivity());
+        BindAheadLinearLayoutManager layoutManager = new BindAheadLinearLayoutManager(getActivity());
         recyclerView.setLayoutManager(layoutManager);
         recyclerView.setAdapter(mAdapter = new MyAdapter(getActivity()));
 
-        SwipeDismissRecyclerViewItemTouchListener listener =
+        SwipeDismissRecyclerViewItemTouchListener listener = mTouchListener =
                 new SwipeDismissRecyclerViewItemTouchListener(recyclerView,
                         getActivity(),
                         new SwipeDismissRecyclerViewItemTouchListener.DismissCallbacks() {
@@ -45,10 +50,32 @@ public class RecyclerViewFragment extends Fragment {
                                 mAdapter.remove(holder);
                             }
                         });
+        listener.setPoolManager(new SwipeDismissPoolManager(recyclerView));
+        listener.setQualityController(new AdaptiveQualityController(getActivity()));
+        listener.setFrameAlignedMoves(true, true);
+        listener.setCatchFlings(true);
+        listener.setTouchPrediction(16, 32 * getResources().getDisplayMetrics().density);
         recyclerView.addOnItemTouchListener(listener);
         recyclerView.setOnScrollListener(listener.makeScrollListener());
 
         return rootView;
     }
 
+    @Override
+    public void onDestroyView() {
+        mTouchListener.release();
+        mTouchListener = null;
+        mRecyclerView = null;
+        mAdapter.getCoordinator().release();
+        super.onDestroyView();
+    }
+
+    public RecyclerView getRecyclerView() {
+        return mRecyclerView;
+    }
+
+    public SwipeDismissRecyclerViewItemTouchListener getTouchListener() {
+        return mTouchListener;
+    }
+
 }
\ No newline at end of file
@@ -21,7 +21,6 @@ package com.codecraft.swipesample;
         import android.animation.Animator;
         import android.animation.AnimatorListenerAdapter;
         import android.animation.ValueAnimator;
-        import android.graphics.Rect;
         import android.os.SystemClock;
         import android.support.v7.widget.RecyclerView;
         import android.view.MotionEvent;
@@ -33,6 +32,10 @@ package com.codecraft.swipesample;
         import android.widget.AbsListView;
         import android.widget.ListView;
 
+        import com.codecraft.swipedismissrecyclerview.ChildHitTester;
+        import com.codecraft.swipedismissrecyclerview.LinearChildHitTester;
+        import com.codecraft.swipedismissrecyclerview.SwipeGestureCore;
+
         import java.util.ArrayList;
         import java.util.Collections;
         import java.util.List;
@@ -78,23 +81,18 @@ package com.codecraft.swipesample;
  */
 public class SwipeDismissListViewTouchListener implements View.OnTouchListener {
     // Cached ViewConfiguration and system-wide constant values
-    private int mSlop;
-    private int mMinFlingVelocity;
-    private int mMaxFlingVelocity;
     private long mAnimationTime;
 
     // Fixed properties
     private RecyclerView mListView;
     private DismissCallbacks mCallbacks;
+    private ChildHitTester mChildHitTester = new LinearChildHitTester();
+    private final SwipeGestureCore mGesture;
     private int mViewWidth = 1; // 1 and not 0 to prevent dividing by zero
 
     // Transient properties
     private List<PendingDismissData> mPendingDismisses = new ArrayList<PendingDismissData>();
     private int mDismissAnimationRefCount = 0;
-    private float mDownX;
-    private float mDownY;
-    private boolean mSwiping;
-    private int mSwipingSlop;
     private VelocityTracker mVelocityTracker;
     private int mDownPosition;
     private View mDownView;
@@ -130,9 +128,8 @@ public class SwipeDismissListViewTouchListener implements View.OnTouchListener {
      */
     public SwipeDismissListViewTouchListener(RecyclerView listView, DismissCallbacks callbacks) {
         ViewConfiguration vc = ViewConfiguration.get(listView.getContext());
-        mSlop = vc.getScaledTouchSlop();
-        mMinFlingVelocity = vc.getScaledMinimumFlingVelocity() * 16;
-        mMaxFlingVelocity = vc.getScaledMaximumFlingVelocity();
+        mGesture = new SwipeGestureCore(vc.getScaledTouchSlop(),
+                vc.getScaledMinimumFlingVelocity() * 16, vc.getScaledMaximumFlingVelocity());
         mAnimationTime = listView.getContext().getResources().getInteger(
                 android.R.integer.config_shortAnimTime);
         mListView = listView;
@@ -148,6 +145,15 @@ public class SwipeDismissListViewTouchListener implements View.OnTouchListener {
         mPaused = !enabled;
     }
 
+    /**
+     * Sets the strategy used to find the touched child.
+     *
+     * @param childHitTester the hit test strategy, must not be null
+     */
+    public void setChildHitTester(ChildHitTester childHitTester) {
+        mChildHitTester = childHitTester;
+    }
+
     /**
      * Returns an {@link AbsListView.OnScrollListener} to be added to the {@link
      * ListView} using {@link ListView#setOnScrollListener(AbsListView.OnScrollListener)}.
@@ -187,27 +193,17 @@ public class SwipeDismissListViewTouchListener implements View.OnTouchListener {
                 // TODO: ensure this is a finger, and set a flag
 
                 // Find the child view that was touched (perform a hit test)
-                Rect rect = new Rect();
-                int childCount = mListView.getChildCount();
                 int[] listViewCoords = new int[2];
                 mListView.getLocationOnScreen(listViewCoords);
-                int x = (int) motionEvent.getRawX() - listViewCoords[0];
-                int y = (int) motionEvent.getRawY() - listViewCoords[1];
-                View child;
-                for (int i = 0; i < childCount; i++) {
-                    child = mListView.getChildAt(i);
-                    child.getHitRect(rect);
-                    if (rect.contains(x, y)) {
-                        mDownView = child;
-                        break;
-                    }
-                }
+                mDownView = mChildHitTester.findChildUnder(mListView,
+                        motionEvent.getRawX() - listViewCoords[0],
+                        motionEvent.getRawY() - listViewCoords[1]);
 
                 if (mDownView != null) {
-                    mDownX = motionEvent.getRawX();
-                    mDownY = motionEvent.getRawY();
                     mDownPosition = mListView.getChildPosition(mDownView);
                     if (mCallbacks.canDismiss(mDownPosition)) {
+                        mGesture.onDown(motionEvent.getRawX(), motionEvent.getRawY(),
+                                motionEvent.getEventTime(), mViewWidth);
                         mVelocityTracker = VelocityTracker.obtain();
                         mVelocityTracker.addMovement(motionEvent);
                     } else {
@@ -222,7 +218,7 @@ public class SwipeDismissListViewTouchListener implements View.OnTouchListener {
                     break;
                 }
 
-                if (mDownView != null && mSwiping) {
+                if (mGesture.onCancel() == SwipeGestureCore.DECISION_CANCEL) {
                     // cancel
                     mDownView.animate()
                             .translationX(0)
@@ -232,11 +228,8 @@ public class SwipeDismissListViewTouchListener implements View.OnTouchListener {
                 }
                 mVelocityTracker.recycle();
                 mVelocityTracker = null;
-                mDownX = 0;
-                mDownY = 0;
                 mDownView = null;
                 mDownPosition = ListView.INVALID_POSITION;
-                mSwiping = false;
                 break;
             }
 
@@ -245,30 +238,19 @@ public class SwipeDismissListViewTouchListener implements View.OnTouchListener {
                     break;
                 }
 
-                float deltaX = motionEvent.getRawX() - mDownX;
                 mVelocityTracker.addMovement(motionEvent);
                 mVelocityTracker.computeCurrentVelocity(1000);
-                float velocityX = mVelocityTracker.getXVelocity();
-                float absVelocityX = Math.abs(velocityX);
-                float absVelocityY = Math.abs(mVelocityTracker.getYVelocity());
-                boolean dismiss = false;
-                boolean dismissRight = false;
-                if (Math.abs(deltaX) > mViewWidth / 2 && mSwiping) {
-                    dismiss = true;
-                    dismissRight = deltaX > 0;
-                } else if (mMinFlingVelocity <= absVelocityX && absVelocityX <= mMaxFlingVelocity
-                        && absVelocityY < absVelocityX && mSwiping) {
-                    // dismiss only if flinging in the same direction as dragging
-                    dismiss = (velocityX < 0) == (deltaX < 0);
-                    dismissRight = mVelocityTracker.getXVelocity() > 0;
-                }
-                if (dismiss && mDownPosition != ListView.INVALID_POSITION) {
+                int decision = mGesture.onUp(motionEvent.getRawX(), motionEvent.getRawY(),
+                        motionEvent.getEventTime(), mVelocityTracker.getXVelocity(),
+                        mVelocityTracker.getYVelocity());
+                if (SwipeGestureCore.isDismiss(decision) && mDownPosition != ListView.INVALID_POSITION) {
                     // dismiss
                     final View downView = mDownView; // mDownView gets null'd before animation ends
                     final int downPosition = mDownPosition;
                     ++mDismissAnimationRefCount;
                     mDownView.animate()
-                            .translationX(dismissRight ? mViewWidth : -mViewWidth)
+                            .translationX(decision == SwipeGestureCore.DECISION_DISMISS_RIGHT
+                                    ? mViewWidth : -mViewWidth)
                             .alpha(0)
                             .setDuration(mAnimationTime)
                             .setListener(new AnimatorListenerAdapter() {
@@ -287,11 +269,8 @@ public class SwipeDismissListViewTouchListener implements View.OnTouchListener {
                 }
                 mVelocityTracker.recycle();
                 mVelocityTracker = null;
-                mDownX = 0;
-                mDownY = 0;
                 mDownView = null;
                 mDownPosition = ListView.INVALID_POSITION;
-                mSwiping = false;
                 break;
             }
 
@@ -301,11 +280,9 @@ public class SwipeDismissListViewTouchListener implements View.OnTouchListener {
                 }
 
                 mVelocityTracker.addMovement(motionEvent);
-                float deltaX = motionEvent.getRawX() - mDownX;
-                float deltaY = motionEvent.getRawY() - mDownY;
-                if (Math.abs(deltaX) > mSlop && Math.abs(deltaY) < Math.abs(deltaX) / 2) {
-                    mSwiping = true;
-                    mSwipingSlop = (deltaX > 0 ? mSlop : -mSlop);
+                int move = mGesture.onMove(motionEvent.getRawX(), motionEvent.getRawY(),
+                        motionEvent.getEventTime());
+                if (move == SwipeGestureCore.MOVE_SWIPE_STARTED) {
                     mListView.requestDisallowInterceptTouchEvent(true);
 
                     // Cancel ListView's touch (un-highlighting the item)
@@ -317,10 +294,9 @@ public class SwipeDismissListViewTouchListener implements View.OnTouchListener {
                     cancelEvent.recycle();
                 }
 
-                if (mSwiping) {
-                    mDownView.setTranslationX(deltaX - mSwipingSlop);
-                    mDownView.setAlpha(Math.max(0f, Math.min(1f,
-                            1f - 2f * Math.abs(deltaX) / mViewWidth)));
+                if (move != SwipeGestureCore.MOVE_IDLE) {
+                    mDownView.setTranslationX(mGesture.getTranslationX());
+                    mDownView.setAlpha(mGesture.getAlpha());
                     return true;
                 }
                 break;
@@ -0,0 +1,364 @@
+/*
+ * Copyright 2014 François Blavoet
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.codecraft.swipedismissrecyclerview;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.support.v7.widget.RecyclerView;
+
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Serializes the changes made to the data of a {@link RecyclerView.Adapter} by background threads
+ * and by swipe dismissals.
+ *
+ * <p>Producers, on any thread, post insert, update and remove intents into a lock-free
+ * multiple-producer single-consumer queue. Once per frame, the main thread drains the queue,
+ * applies the intents in order to the backing list, and notifies the adapter. Consecutive changes of
+ * the same kind to neighbouring positions are coalesced into a single range notification.</p>
+ *
+ * <p>Items posted by producers are matched with {@link Object#equals(Object)}: an update replaces
+ * the first item equal to the given one, a remove removes it. Dismissed items are matched by
+ * identity, so that the dismissed row is removed even when another item is equal to it. Once a coordinator is used, the backing list must only be
+ * modified through it.</p>
+ *
+ * <p>A dismissed holder is resolved to its item by identity, since its position is only updated by
+ * the next layout and may already point to another item. Either the adapter has stable ids, or it
+ * tells the coordinator which item each holder shows:</p>
+ *
+ * <pre>
+ * public void onBindViewHolder(MyViewHolder holder, int position) {
+ *     mCoordinator.onBind(holder, position);
+ *     ...
+ * }
+ *
+ * public void onDismiss(RecyclerView recyclerView, RecyclerView.ViewHolder holder) {
+ *     mCoordinator.dismiss(holder);
+ * }
+ * </pre>
+ *
+ * @param <T> the type of the items of the adapter
+ */
+public class AdapterUpdateCoordinator<T> implements FrameScheduler.Callback {
+
+    static final int OP_NONE = 0;
+    static final int OP_INSERT = 1;
+    static final int OP_UPDATE = 2;
+    static final int OP_REMOVE = 3;
+    // queued only: applied as a removal of the very same item
+    static final int OP_DISMISS = 4;
+
+    /**
+     * A queued intent. The queue always starts with a consumed stub node.
+     */
+    private static final class Node<T> {
+        final int op;
+        final int position;
+        T item;
+        volatile Node<T> next;
+
+        Node(int op, int position, T item) {
+            this.op = op;
+            this.position = position;
+            this.item = item;
+        }
+    }
+
+    // Fixed properties
+    private final RecyclerView.Adapter mAdapter;
+    private final List<T> mItems;
+    private final Handler mMainHandler = new Handler(Looper.getMainLooper());
+    private final FrameScheduler mFrameScheduler = new FrameScheduler(this);
+    private final Runnable mScheduleDrain = new Runnable() {
+        @Override
+        public void run() {
+            mFrameScheduler.schedule();
+        }
+    };
+
+    // Queue, written by producers at the tail and read by the main thread at the head
+    private final AtomicReference<Node<T>> mTail;
+    private Node<T> mHead;
+    private final AtomicBoolean mDrainScheduled = new AtomicBoolean();
+
+    // The item each holder was last bound to, main thread only
+    private final Map<RecyclerView.ViewHolder, T> mBoundItems = new WeakHashMap<RecyclerView.ViewHolder, T>();
+
+    // Notification being coalesced, main thread only
+    private int mRunOp = OP_NONE;
+    private int mRunStart;
+    private int mRunCount;
+
+
+    /**
+     * @param adapter the adapter to notify
+     * @param items   the list backing the adapter
+     */
+    public AdapterUpdateCoordinator(RecyclerView.Adapter adapter, List<T> items) {
+        mAdapter = adapter;
+        mItems = items;
+        mHead = new Node<T>(OP_NONE, 0, null);
+        mTail = new AtomicReference<Node<T>>(mHead);
+    }
+
+    /**
+     * Inserts an item. Can be called from any thread.
+     *
+     * @param position the position to insert at, clamped to the size of the list when applied,
+     *                 or -1 to append
+     * @param item     the item to insert
+     */
+    public void postInsert(int position, T item) {
+        offer(new Node<T>(OP_INSERT, position, item));
+    }
+
+    /**
+     * Replaces the first item equal to the given one. Can be called from any thread.
+     */
+    public void postUpdate(T item) {
+        offer(new Node<T>(OP_UPDATE, -1, item));
+    }
+
+    /**
+     * Removes the first item equal to the given one. Can be called from any thread.
+     */
+    public void postRemove(T item) {
+        offer(new Node<T>(OP_REMOVE, -1, item));
+    }
+
+    /**
+     * Records the item the given holder is being bound to, for {@link #dismiss(RecyclerView.ViewHolder)}.
+     * Must be called from {@code onBindViewHolder} unless the adapter has stable ids.
+     *
+     * @param holder   the holder being bound
+     * @param position the position passed to {@code onBindViewHolder}
+     */
+    public void onBind(RecyclerView.ViewHolder holder, int position) {
+        mBoundItems.put(holder, mItems.get(position));
+    }
+
+    /**
+     * Commits the dismissal of a swiped item, ordered with the pending background changes. Must be
+     * called from the main thread, typically from {@code DismissCallbacks.onDismiss}. An item
+     * already removed by a background change is left alone.
+     *
+     * @param holder the holder of the dismissed item
+     * @throws IllegalStateException if the holder was not recorded with
+     *                               {@link #onBind(RecyclerView.ViewHolder, int)} and the adapter has
+     *                               no stable ids
+     */
+    public void dismiss(RecyclerView.ViewHolder holder) {
+        // the position of the holder is only updated by the next layout: a drain since the last one
+        // may have moved another item there
+        T item = mBoundItems.get(holder);
+        if (item == null) {
+            if (!mAdapter.hasStableIds()) {
+                throw new IllegalStateException("holder not bound through onBind, and no stable ids");
+            }
+            item = findById(holder.getItemId());
+        }
+        if (item != null) {
+            offer(new Node<T>(OP_DISMISS, -1, item));
+        }
+    }
+
+    private T findById(long id) {
+        if (id == RecyclerView.NO_ID) {
+            return null;
+        }
+        for (int position = 0; position < mItems.size(); position++) {
+            if (mAdapter.getItemId(position) == id) {
+                return mItems.get(position);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Applies all pending changes now instead of on the next frame. Must be called from the main
+     * thread.
+     */
+    public void flush() {
+        mFrameScheduler.cancel();
+        drain();
+    }
+
+    /**
+     * Stops draining. Pending changes are dropped. Must be called from the main thread.
+     */
+    public void release() {
+        mMainHandler.removeCallbacks(mScheduleDrain);
+        mFrameScheduler.cancel();
+        Node<T> node;
+        while ((node = poll()) != null) {
+            node.item = null;
+        }
+        mBoundItems.clear();
+    }
+
+    @Override
+    public void doFrame(long frameTimeNanos) {
+        drain();
+    }
+
+    private void offer(Node<T> node) {
+        Node<T> previous = mTail.getAndSet(node);
+        previous.next = node;
+        if (mDrainScheduled.compareAndSet(false, true)) {
+            if (Looper.myLooper() == Looper.getMainLooper()) {
+                mFrameScheduler.schedule();
+            } else {
+                mMainHandler.post(mScheduleDrain);
+            }
+        }
+    }
+
+    private Node<T> poll() {
+        Node<T> next = mHead.next;
+        if (next == null) {
+            return null;
+        }
+        // the polled node becomes the new stub
+        mHead.item = null;
+        mHead = next;
+        return next;
+    }
+
+    private void drain() {
+        // reset first: a producer offering from now on schedules another drain
+        mDrainScheduled.set(false);
+
+        Node<T> node;
+        while ((node = poll()) != null) {
+            T item = node.item;
+            node.item = null;
+            switch (node.op) {
+                case OP_INSERT:
+                    applyInsert(node.position, item);
+                    break;
+                case OP_UPDATE:
+                    applyUpdate(item);
+                    break;
+                case OP_REMOVE:
+                    applyRemove(mItems.indexOf(item));
+                    break;
+                case OP_DISMISS:
+                    applyRemove(indexOfSame(item));
+                    break;
+            }
+        }
+        flushRun();
+
+        if (mTail.get() != mHead && mDrainScheduled.compareAndSet(false, true)) {
+            // a producer was caught between swapping the tail and linking its node
+            mFrameScheduler.schedule();
+        }
+    }
+
+    private void applyInsert(int position, T item) {
+        if (position < 0 || position > mItems.size()) {
+            position = mItems.size();
+        }
+        mItems.add(position, item);
+        if (mRunOp == OP_INSERT && position >= mRunStart && position <= mRunStart + mRunCount) {
+            mRunCount++;
+        } else {
+            startRun(OP_INSERT, position);
+        }
+    }
+
+    private void applyUpdate(T item) {
+        int position = mItems.indexOf(item);
+        if (position < 0) {
+            return;
+        }
+        mItems.set(position, item);
+        if (mRunOp == OP_UPDATE && position >= mRunStart - 1 && position <= mRunStart + mRunCount) {
+            if (position == mRunStart - 1) {
+                mRunStart--;
+                mRunCount++;
+            } else if (position == mRunStart + mRunCount) {
+                mRunCount++;
+            }
+        } else {
+            startRun(OP_UPDATE, position);
+        }
+    }
+
+    private int indexOfSame(T item) {
+        for (int position = 0; position < mItems.size(); position++) {
+            if (mItems.get(position) == item) {
+                return position;
+            }
+        }
+        return -1;
+    }
+
+    private void applyRemove(int position) {
+        if (position < 0) {
+            return;
+        }
+        mItems.remove(position);
+        if (mRunOp == OP_REMOVE && position == mRunStart) {
+            mRunCount++;
+        } else if (mRunOp == OP_REMOVE && position == mRunStart - 1) {
+            mRunStart--;
+            mRunCount++;
+        } else {
+            startRun(OP_REMOVE, position);
+        }
+    }
+
+    private void startRun(int op, int position) {
+        flushRun();
+        mRunOp = op;
+        mRunStart = position;
+        mRunCount = 1;
+    }
+
+    private void flushRun() {
+        if (mRunOp != OP_NONE) {
+            notifyRun(mRunOp, mRunStart, mRunCount);
+            mRunOp = OP_NONE;
+        }
+    }
+
+    /**
+     * Notifies the adapter of a coalesced run of changes. Overridden by the tests, which cannot
+     * observe the notifications of an adapter outside of a device.
+     *
+     * @param op one of {@link #OP_INSERT}, {@link #OP_UPDATE} and {@link #OP_REMOVE}
+     */
+    void notifyRun(int op, int positionStart, int itemCount) {
+        switch (op) {
+            case OP_INSERT:
+                mAdapter.notifyItemRangeInserted(positionStart, itemCount);
+                break;
+            case OP_UPDATE:
+                mAdapter.notifyItemRangeChanged(positionStart, itemCount);
+                break;
+            case OP_REMOVE:
+                mAdapter.notifyItemRangeRemoved(positionStart, itemCount);
+                break;
+        }
+    }
+}
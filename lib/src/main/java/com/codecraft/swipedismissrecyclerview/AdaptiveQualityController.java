@@ -0,0 +1,159 @@
+/*
+ * Copyright 2014 François Blavoet
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.codecraft.swipedismissrecyclerview;
+
+import android.annotation.TargetApi;
+import android.app.ActivityManager;
+import android.content.Context;
+import android.os.Build;
+import android.os.SystemClock;
+
+/**
+ * Chooses how many effects the swipe listeners can afford, from the device class and from the
+ * frames actually dropped while swiping.
+ *
+ * <p>The controller starts at {@link #QUALITY_FULL}, or at {@link #QUALITY_REDUCED} on low-RAM
+ * devices, which is then also the highest level it goes back to. While the listeners report
+ * activity through {@link #markActive()}, it watches the frame intervals against the refresh rate
+ * of the display. It steps down one level when more than a fifth of the frames of a window were
+ * dropped, and back up after a few windows without a single drop.</p>
+ *
+ * <ul>
+ * <li>{@link #QUALITY_FULL}: all effects.</li>
+ * <li>{@link #QUALITY_REDUCED}: no alpha while swiping and sliding out.</li>
+ * <li>{@link #QUALITY_MINIMAL}: no alpha, animations twice as short, no height collapse.</li>
+ * </ul>
+ */
+public class AdaptiveQualityController implements FrameScheduler.Callback {
+
+    public static final int QUALITY_MINIMAL = 0;
+    public static final int QUALITY_REDUCED = 1;
+    public static final int QUALITY_FULL = 2;
+
+    private static final int WINDOW_FRAMES = 30;
+    private static final int MAX_DROPPED_PER_WINDOW = WINDOW_FRAMES / 5;
+    private static final int CLEAN_WINDOWS_TO_STEP_UP = 3;
+    private static final long ACTIVE_TIMEOUT = 500;
+
+    // Fixed properties
+    private final int mMaxQuality;
+    private final long mFrameIntervalNanos;
+    private final FrameScheduler mFrameScheduler = new FrameScheduler(this);
+
+    // Transient properties
+    private int mQuality;
+    private long mActiveUntil;
+    private long mLastFrameTimeNanos;
+    private int mWindowFrames;
+    private int mWindowDropped;
+    private int mCleanWindows;
+
+
+    public AdaptiveQualityController(Context context) {
+        mMaxQuality = isLowRamDevice(context) ? QUALITY_REDUCED : QUALITY_FULL;
+        mQuality = mMaxQuality;
+        mFrameIntervalNanos = FrameScheduler.getFrameIntervalNanos(context);
+    }
+
+    @TargetApi(Build.VERSION_CODES.KITKAT)
+    private static boolean isLowRamDevice(Context context) {
+        return Build.VERSION.SDK_INT >= Build.VERSION_CODES.KITKAT
+                && ((ActivityManager) context.getSystemService(Context.ACTIVITY_SERVICE)).isLowRamDevice();
+    }
+
+    /**
+     * @return the current level, one of the {@code QUALITY_*} values
+     */
+    public int getQuality() {
+        return mQuality;
+    }
+
+    /**
+     * @return whether the swiped view should fade out with the distance
+     */
+    public boolean isAlphaEnabled() {
+        return mQuality == QUALITY_FULL;
+    }
+
+    /**
+     * @return whether the dismissed view should collapse its height before being removed
+     */
+    public boolean isCollapseEnabled() {
+        return mQuality != QUALITY_MINIMAL;
+    }
+
+    /**
+     * @param duration a default animation duration, in ms
+     * @return the duration to use at the current level, in ms
+     */
+    public long scaleDuration(long duration) {
+        return mQuality == QUALITY_MINIMAL ? duration / 2 : duration;
+    }
+
+    /**
+     * Tells the controller that something is being swiped or animated, so that the next frames are
+     * watched.
+     */
+    public void markActive() {
+        long now = SystemClock.uptimeMillis();
+        if (mActiveUntil < now) {
+            // do not count the idle time before this as a dropped frame
+            mLastFrameTimeNanos = 0;
+        }
+        mActiveUntil = now + ACTIVE_TIMEOUT;
+        mFrameScheduler.schedule();
+    }
+
+    /**
+     * Stops watching frames.
+     */
+    public void release() {
+        mFrameScheduler.cancel();
+        mActiveUntil = 0;
+    }
+
+    @Override
+    public void doFrame(long frameTimeNanos) {
+        if (mLastFrameTimeNanos != 0) {
+            long dropped = (frameTimeNanos - mLastFrameTimeNanos + mFrameIntervalNanos / 2) / mFrameIntervalNanos - 1;
+            mWindowDropped += Math.max(0, dropped);
+            mWindowFrames++;
+            if (mWindowFrames == WINDOW_FRAMES) {
+                endWindow();
+            }
+        }
+        mLastFrameTimeNanos = frameTimeNanos;
+
+        if (SystemClock.uptimeMillis() < mActiveUntil) {
+            mFrameScheduler.schedule();
+        } else {
+            mLastFrameTimeNanos = 0;
+        }
+    }
+
+    private void endWindow() {
+        if (mWindowDropped > MAX_DROPPED_PER_WINDOW) {
+            mCleanWindows = 0;
+            mQuality = Math.max(QUALITY_MINIMAL, mQuality - 1);
+        } else if (mWindowDropped == 0 && ++mCleanWindows >= CLEAN_WINDOWS_TO_STEP_UP) {
+            mCleanWindows = 0;
+            mQuality = Math.min(mMaxQuality, mQuality + 1);
+        }
+        mWindowFrames = 0;
+        mWindowDropped = 0;
+    }
+}
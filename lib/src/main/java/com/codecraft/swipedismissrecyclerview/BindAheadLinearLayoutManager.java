@@ -0,0 +1,155 @@
+/*
+ * Copyright 2014 François Blavoet
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.codecraft.swipedismissrecyclerview;
+
+import android.content.Context;
+import android.os.Looper;
+import android.os.MessageQueue;
+import android.support.v7.widget.LinearLayoutManager;
+import android.support.v7.widget.RecyclerView;
+import android.view.View;
+
+/**
+ * A {@link LinearLayoutManager} that binds, ahead of time, the rows a dismissal is about to reveal.
+ *
+ * <p>When a row is removed, the rows after it shift into its place and the rows needed to fill the
+ * end of the list are created and bound in the same frame as the start of the removal animation.
+ * Once {@link SwipeDismissRecyclerViewItemTouchListener} reports that a row is being swiped, this
+ * layout manager predicts that the rows revealed by its removal are the ones that fit within the
+ * size of that row past the last row laid out. On the idle moments of the main thread, one row per
+ * idle callback, it fetches them from the {@link RecyclerView.Recycler}, which binds them, and
+ * recycles them right away into the item view cache. Nothing is laid out: the frames of the swipe
+ * are left alone. When the removal is laid out, RecyclerView finds the rows in its cache, with
+ * positions it has kept up to date, and only needs to attach them.</p>
+ *
+ * <p>The swipe listener drives this layout manager when it is set on the {@link RecyclerView}. The
+ * cache keeps two rows by default, the oldest ones going to the pool, where they would need to be
+ * bound again: raise it with {@link RecyclerView#setItemViewCacheSize(int)} when a dismissal
+ * typically reveals more rows.</p>
+ */
+public class BindAheadLinearLayoutManager extends LinearLayoutManager implements MessageQueue.IdleHandler {
+
+    // Transient properties
+    private RecyclerView.Recycler mRecycler;
+    private int mLaidOutItemCount;
+    private int mPendingExtent;
+    private int mNextPosition = RecyclerView.NO_POSITION;
+    private boolean mIdleHandlerQueued;
+
+    public BindAheadLinearLayoutManager(Context context) {
+        super(context);
+    }
+
+    public BindAheadLinearLayoutManager(Context context, int orientation, boolean reverseLayout) {
+        super(context, orientation, reverseLayout);
+    }
+
+    @Override
+    public void onLayoutChildren(RecyclerView.Recycler recycler, RecyclerView.State state) {
+        // the RecyclerView always passes the same recycler
+        mRecycler = recycler;
+        if (!state.isPreLayout()) {
+            mLaidOutItemCount = state.getItemCount();
+        }
+        super.onLayoutChildren(recycler, state);
+    }
+
+    @Override
+    public void onDetachedFromWindow(RecyclerView view) {
+        super.onDetachedFromWindow(view);
+        onDismissDone();
+        mRecycler = null;
+    }
+
+    /**
+     * Predicts what the removal of the given row would reveal and binds it at the next idle moments.
+     */
+    void onDismissPending(RecyclerView.ViewHolder holder) {
+        View view = holder.itemView;
+        View last = null;
+        int lastPosition = RecyclerView.NO_POSITION;
+        for (int i = 0; i < getChildCount(); i++) {
+            View child = getChildAt(i);
+            if (getPosition(child) > lastPosition) {
+                last = child;
+                lastPosition = getPosition(child);
+            }
+        }
+        if (last == null || mRecycler == null) {
+            return;
+        }
+        // the rows already laid out past the end are revealed first
+        mPendingExtent = (getOrientation() == VERTICAL ? view.getHeight() : view.getWidth())
+                - getOverflow(last);
+        mNextPosition = lastPosition + 1;
+        if (mPendingExtent > 0) {
+            queueIdleHandler();
+        }
+    }
+
+    /**
+     * Forgets the prediction once the row has been removed or put back. The rows already bound are
+     * left in the cache, where the next layout finds them if they are revealed.
+     */
+    void onDismissDone() {
+        mPendingExtent = 0;
+        mNextPosition = RecyclerView.NO_POSITION;
+        if (mIdleHandlerQueued) {
+            mIdleHandlerQueued = false;
+            Looper.myQueue().removeIdleHandler(this);
+        }
+    }
+
+    @Override
+    public boolean queueIdle() {
+        // the item count of the last layout: the adapter may have changed since
+        if (mRecycler == null || mPendingExtent <= 0
+                || mNextPosition >= Math.min(mLaidOutItemCount, getItemCount())) {
+            mIdleHandlerQueued = false;
+            return false;
+        }
+        View view = mRecycler.getViewForPosition(mNextPosition++);
+        measureChildWithMargins(view, 0, 0);
+        mPendingExtent -= getOrientation() == VERTICAL
+                ? getDecoratedMeasuredHeight(view) : getDecoratedMeasuredWidth(view);
+        mRecycler.recycleView(view);
+        mIdleHandlerQueued = mPendingExtent > 0;
+        return mIdleHandlerQueued;
+    }
+
+    /**
+     * @return how far the given row, the last one, extends past the end of the list
+     */
+    private int getOverflow(View last) {
+        int overflow;
+        if (getOrientation() == VERTICAL) {
+            overflow = getReverseLayout() ? getPaddingTop() - getDecoratedTop(last)
+                    : getDecoratedBottom(last) - (getHeight() - getPaddingBottom());
+        } else {
+            overflow = getReverseLayout() ? getPaddingLeft() - getDecoratedLeft(last)
+                    : getDecoratedRight(last) - (getWidth() - getPaddingRight());
+        }
+        return Math.max(0, overflow);
+    }
+
+    private void queueIdleHandler() {
+        if (!mIdleHandlerQueued) {
+            mIdleHandlerQueued = true;
+            Looper.myQueue().addIdleHandler(this);
+        }
+    }
+}
@@ -0,0 +1,43 @@
+/*
+ * Copyright 2014 François Blavoet
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.codecraft.swipedismissrecyclerview;
+
+import android.support.v7.widget.RecyclerView;
+import android.view.View;
+
+/**
+ * Strategy used by the swipe listeners to find the child of a {@link RecyclerView} under a touch.
+ *
+ * <p>Implementations must take the current translation of the children into account, so that rows
+ * being swiped or animated are found where they are drawn rather than where they were laid out.</p>
+ *
+ * @see LinearChildHitTester
+ * @see GridChildHitTester
+ */
+public interface ChildHitTester {
+
+    /**
+     * Finds the child under the given point.
+     *
+     * @param recyclerView the {@link RecyclerView} whose children are searched
+     * @param x            the x coordinate, relative to the {@link RecyclerView}
+     * @param y            the y coordinate, relative to the {@link RecyclerView}
+     * @return the child under the point, or null if there is none
+     */
+    View findChildUnder(RecyclerView recyclerView, float x, float y);
+}
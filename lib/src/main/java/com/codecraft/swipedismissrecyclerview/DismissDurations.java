@@ -0,0 +1,58 @@
+/*
+ * Copyright 2014 François Blavoet
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.codecraft.swipedismissrecyclerview;
+
+import android.view.animation.AccelerateDecelerateInterpolator;
+import android.view.animation.DecelerateInterpolator;
+import android.view.animation.Interpolator;
+
+/**
+ * Computes how long a slide-out lasts when it continues the user's fling instead of running for a
+ * fixed duration.
+ *
+ * <p>The slide-out uses {@link #FLING_INTERPOLATOR}, a quadratic ease-out whose slope at the origin
+ * is 2. Over a distance d and a duration T, it starts at a speed of 2d/T, so the row leaves at the
+ * release velocity when T = 2d/v and then decelerates until it is off screen.</p>
+ */
+final class DismissDurations {
+
+    static final Interpolator FLING_INTERPOLATOR = new DecelerateInterpolator();
+
+    // The ValueAnimator default, set back explicitly as a ViewPropertyAnimator keeps its interpolator
+    static final Interpolator DEFAULT_INTERPOLATOR = new AccelerateDecelerateInterpolator();
+
+    // Never go below two frames, the fade would not be visible at all
+    static final long MIN_DURATION = 32;
+
+    private DismissDurations() {
+    }
+
+    /**
+     * @param distance    the distance left to travel, in px
+     * @param velocity    the release velocity along the same axis, in px/s, signed
+     * @param maxDuration the duration to use for slow or backward releases, in ms
+     * @return the duration of the slide-out, in ms
+     */
+    static long forVelocity(float distance, float velocity, long maxDuration) {
+        if (distance == 0 || (distance > 0) != (velocity > 0)) {
+            return maxDuration;
+        }
+        long duration = (long) (2000f * Math.abs(distance) / Math.abs(velocity));
+        return Math.max(Math.min(MIN_DURATION, maxDuration), Math.min(duration, maxDuration));
+    }
+}
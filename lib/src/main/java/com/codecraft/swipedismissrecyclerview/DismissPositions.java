@@ -0,0 +1,98 @@
+/*
+ * Copyright 2014 François Blavoet
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.codecraft.swipedismissrecyclerview;
+
+import java.util.Arrays;
+
+/**
+ * A sorted set of adapter positions, kept in step with the changes of the adapter: the positions
+ * after a removal or an insertion are shifted, and removed positions are dropped.
+ */
+final class DismissPositions {
+
+    private final int[] mPositions;
+    private int mCount;
+
+    /**
+     * @param positions the positions, sorted and unique, in the first {@code count} slots; the
+     *                  array is kept and modified
+     */
+    DismissPositions(int[] positions, int count) {
+        mPositions = positions;
+        mCount = count;
+    }
+
+    int size() {
+        return mCount;
+    }
+
+    int get(int index) {
+        return mPositions[index];
+    }
+
+    int first() {
+        return mPositions[0];
+    }
+
+    boolean contains(int position) {
+        return Arrays.binarySearch(mPositions, 0, mCount, position) >= 0;
+    }
+
+    void remove(int position) {
+        int index = Arrays.binarySearch(mPositions, 0, mCount, position);
+        if (index >= 0) {
+            System.arraycopy(mPositions, index + 1, mPositions, index, mCount - index - 1);
+            mCount--;
+        }
+    }
+
+    void onItemRangeInserted(int positionStart, int itemCount) {
+        for (int i = 0; i < mCount; i++) {
+            if (mPositions[i] >= positionStart) {
+                mPositions[i] += itemCount;
+            }
+        }
+    }
+
+    void onItemRangeRemoved(int positionStart, int itemCount) {
+        int kept = 0;
+        for (int i = 0; i < mCount; i++) {
+            int position = mPositions[i];
+            if (position >= positionStart + itemCount) {
+                mPositions[kept++] = position - itemCount;
+            } else if (position < positionStart) {
+                mPositions[kept++] = position;
+            }
+        }
+        mCount = kept;
+    }
+
+    void onItemRangeMoved(int fromPosition, int toPosition, int itemCount) {
+        for (int i = 0; i < mCount; i++) {
+            int position = mPositions[i];
+            if (position >= fromPosition && position < fromPosition + itemCount) {
+                mPositions[i] = toPosition + position - fromPosition;
+            } else if (fromPosition < toPosition && position >= fromPosition + itemCount
+                    && position < toPosition + itemCount) {
+                mPositions[i] = position - itemCount;
+            } else if (toPosition < fromPosition && position >= toPosition && position < fromPosition) {
+                mPositions[i] = position + itemCount;
+            }
+        }
+        Arrays.sort(mPositions, 0, mCount);
+    }
+}
@@ -0,0 +1,348 @@
+/*
+ * Copyright 2014 François Blavoet
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.codecraft.swipedismissrecyclerview;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.support.v7.widget.RecyclerView;
+
+import java.util.Arrays;
+
+/**
+ * Remembers which items can be dismissed, so that the touch path tests a bit instead of calling
+ * {@link SwipeDismissRecyclerViewItemTouchListener.DismissCallbacks#canDismiss(int)}.
+ *
+ * <p>The index is keyed either by adapter position, and shifted along with the insertions,
+ * removals and moves the adapter notifies, or by stable id, which survives any change. It can be
+ * filled from {@code onBindViewHolder} with {@link #set(int, boolean)}, or in bulk from a background
+ * thread with a {@link BulkUpdate}. Items that are not in the index, or whose change was notified,
+ * are asked to {@code canDismiss} once and then remembered.</p>
+ *
+ * <pre>
+ * DismissabilityIndex index = DismissabilityIndex.byPosition(adapter);
+ * touchListener.setDismissabilityIndex(index);
+ *
+ * final DismissabilityIndex.BulkUpdate update = index.startBulkUpdate();
+ * executor.execute(new Runnable() {
+ *     public void run() {
+ *         for (int i = 0; i &lt; items.size(); i++) {
+ *             update.set(i, !items.get(i).isLocked());
+ *         }
+ *         update.publish();
+ *     }
+ * });
+ * </pre>
+ *
+ * <p>Apart from {@link BulkUpdate#set} and {@link BulkUpdate#publish()}, all methods must be called
+ * from the main thread.</p>
+ */
+public class DismissabilityIndex extends RecyclerView.AdapterDataObserver {
+
+    private static final byte UNKNOWN = StableIdStates.UNKNOWN;
+    private static final byte NOT_DISMISSABLE = 1;
+    private static final byte DISMISSABLE = 2;
+
+    // Fixed properties
+    private final RecyclerView.Adapter mAdapter;
+    private final boolean mByStableId;
+    private final Handler mMainHandler = new Handler(Looper.getMainLooper());
+
+    // Transient properties, by position
+    private long[] mKnown = new long[1];
+    private long[] mAllowed = new long[1];
+    private int mSize;
+    // Transient properties, by stable id
+    private final StableIdStates mStatesById = new StableIdStates();
+    // Incremented on every adapter change, to drop bulk updates computed on stale positions
+    private int mGeneration;
+
+    private DismissabilityIndex(RecyclerView.Adapter adapter, boolean byStableId) {
+        mAdapter = adapter;
+        mByStableId = byStableId;
+        mSize = adapter.getItemCount();
+        ensureCapacity(mSize);
+        adapter.registerAdapterDataObserver(this);
+    }
+
+    /**
+     * @return an index keyed by adapter position
+     */
+    public static DismissabilityIndex byPosition(RecyclerView.Adapter adapter) {
+        return new DismissabilityIndex(adapter, false);
+    }
+
+    /**
+     * @return an index keyed by the stable ids of the given adapter
+     */
+    public static DismissabilityIndex byStableId(RecyclerView.Adapter adapter) {
+        if (!adapter.hasStableIds()) {
+            throw new IllegalArgumentException("the adapter has no stable ids");
+        }
+        return new DismissabilityIndex(adapter, true);
+    }
+
+    /**
+     * Records whether the item at the given position can be dismissed.
+     */
+    public void set(int position, boolean dismissable) {
+        if (mByStableId) {
+            mStatesById.put(mAdapter.getItemId(position), dismissable ? DISMISSABLE : NOT_DISMISSABLE);
+        } else if (position >= 0 && position < mSize) {
+            setBit(mKnown, position, true);
+            setBit(mAllowed, position, dismissable);
+        }
+    }
+
+    /**
+     * Forgets everything, so that every item is asked again.
+     */
+    public void clear() {
+        Arrays.fill(mKnown, 0);
+        mStatesById.clear();
+    }
+
+    /**
+     * Stops following the adapter.
+     */
+    public void release() {
+        mAdapter.unregisterAdapterDataObserver(this);
+        clear();
+    }
+
+    /**
+     * Starts a bulk update, to be filled on any thread and then published. A bulk update by position
+     * is dropped if the adapter changes before it is applied.
+     */
+    public BulkUpdate startBulkUpdate() {
+        return new BulkUpdate(mByStableId ? 0 : mSize, mGeneration);
+    }
+
+    /**
+     * @return whether the item at the given position can be dismissed, asking the callbacks and
+     * remembering their answer if the index does not know
+     */
+    boolean canDismiss(int position, SwipeDismissRecyclerViewItemTouchListener.DismissCallbacks callbacks) {
+        byte state;
+        long id = 0;
+        if (mByStableId) {
+            id = mAdapter.getItemId(position);
+            state = mStatesById.get(id);
+        } else if (position >= 0 && position < mSize && getBit(mKnown, position)) {
+            state = getBit(mAllowed, position) ? DISMISSABLE : NOT_DISMISSABLE;
+        } else {
+            state = UNKNOWN;
+        }
+        if (state != UNKNOWN) {
+            return state == DISMISSABLE;
+        }
+
+        boolean dismissable = callbacks.canDismiss(position);
+        if (mByStableId) {
+            mStatesById.put(id, dismissable ? DISMISSABLE : NOT_DISMISSABLE);
+        } else {
+            set(position, dismissable);
+        }
+        return dismissable;
+    }
+
+    @Override
+    public void onChanged() {
+        mGeneration++;
+        if (!mByStableId) {
+            mSize = mAdapter.getItemCount();
+            ensureCapacity(mSize);
+        }
+        clear();
+    }
+
+    @Override
+    public void onItemRangeChanged(int positionStart, int itemCount) {
+        mGeneration++;
+        for (int position = positionStart; position < positionStart + itemCount; position++) {
+            if (mByStableId) {
+                mStatesById.put(mAdapter.getItemId(position), UNKNOWN);
+            } else if (position < mSize) {
+                setBit(mKnown, position, false);
+            }
+        }
+    }
+
+    @Override
+    public void onItemRangeInserted(int positionStart, int itemCount) {
+        mGeneration++;
+        if (mByStableId) {
+            return;
+        }
+        ensureCapacity(mSize + itemCount);
+        for (int position = mSize - 1; position >= positionStart; position--) {
+            copyBit(position, position + itemCount);
+        }
+        for (int position = positionStart; position < positionStart + itemCount; position++) {
+            setBit(mKnown, position, false);
+        }
+        mSize += itemCount;
+    }
+
+    @Override
+    public void onItemRangeRemoved(int positionStart, int itemCount) {
+        mGeneration++;
+        if (mByStableId) {
+            // the ids of the removed items are gone: drop everything once they pile up
+            if (mStatesById.size() > 2 * mAdapter.getItemCount() + 16) {
+                mStatesById.clear();
+            }
+            return;
+        }
+        for (int position = positionStart + itemCount; position < mSize; position++) {
+            copyBit(position, position - itemCount);
+        }
+        mSize = Math.max(0, mSize - itemCount);
+        for (int position = mSize; position < mSize + itemCount; position++) {
+            setBit(mKnown, position, false);
+        }
+    }
+
+    @Override
+    public void onItemRangeMoved(int fromPosition, int toPosition, int itemCount) {
+        mGeneration++;
+        if (mByStableId) {
+            return;
+        }
+        // RecyclerView only moves single items
+        for (int i = 0; i < itemCount; i++) {
+            int from = fromPosition + i;
+            int to = toPosition + i;
+            if (from >= mSize || to >= mSize) {
+                continue;
+            }
+            boolean known = getBit(mKnown, from);
+            boolean allowed = getBit(mAllowed, from);
+            int step = from < to ? 1 : -1;
+            for (int position = from; position != to; position += step) {
+                copyBit(position + step, position);
+            }
+            setBit(mKnown, to, known);
+            setBit(mAllowed, to, allowed);
+        }
+    }
+
+    private void apply(BulkUpdate update) {
+        if (mByStableId) {
+            for (int i = 0; i < update.mIdCount; i++) {
+                mStatesById.put(update.mIds[i], update.mIdStates[i]);
+            }
+        } else if (update.mGeneration == mGeneration) {
+            // what the update knows wins over what was set meanwhile
+            for (int i = 0; i < update.mKnown.length; i++) {
+                mAllowed[i] = (mAllowed[i] & ~update.mKnown[i]) | (update.mAllowed[i] & update.mKnown[i]);
+                mKnown[i] |= update.mKnown[i];
+            }
+        }
+    }
+
+    /**
+     * Dismissability computed away from the main thread, applied with {@link #publish()}.
+     */
+    public final class BulkUpdate implements Runnable {
+        private final int mGeneration;
+        // by position
+        private final long[] mKnown;
+        private final long[] mAllowed;
+        // by stable id
+        private long[] mIds;
+        private byte[] mIdStates;
+        private int mIdCount;
+
+        private BulkUpdate(int size, int generation) {
+            mGeneration = generation;
+            mKnown = new long[(size + 63) / 64];
+            mAllowed = new long[mKnown.length];
+        }
+
+        /**
+         * Records whether the item at the given position can be dismissed, for an index by position.
+         */
+        public void set(int position, boolean dismissable) {
+            if (mByStableId) {
+                throw new IllegalStateException("index by stable id");
+            }
+            if (position >= 0 && position < mKnown.length * 64) {
+                setBit(mKnown, position, true);
+                setBit(mAllowed, position, dismissable);
+            }
+        }
+
+        /**
+         * Records whether the item with the given stable id can be dismissed, for an index by id.
+         */
+        public void setById(long id, boolean dismissable) {
+            if (!mByStableId) {
+                throw new IllegalStateException("index by position");
+            }
+            if (mIds == null) {
+                mIds = new long[64];
+                mIdStates = new byte[64];
+            } else if (mIdCount == mIds.length) {
+                mIds = Arrays.copyOf(mIds, mIdCount * 2);
+                mIdStates = Arrays.copyOf(mIdStates, mIdCount * 2);
+            }
+            mIds[mIdCount] = id;
+            mIdStates[mIdCount] = dismissable ? DISMISSABLE : NOT_DISMISSABLE;
+            mIdCount++;
+        }
+
+        /**
+         * Applies this update on the main thread. No more values may be set.
+         */
+        public void publish() {
+            mMainHandler.post(this);
+        }
+
+        @Override
+        public void run() {
+            apply(this);
+        }
+    }
+
+    // Bits by position
+
+    private void ensureCapacity(int size) {
+        int words = (size + 63) / 64;
+        if (words > mKnown.length) {
+            words = Math.max(words, mKnown.length * 2);
+            mKnown = Arrays.copyOf(mKnown, words);
+            mAllowed = Arrays.copyOf(mAllowed, words);
+        }
+    }
+
+    private void copyBit(int from, int to) {
+        setBit(mKnown, to, getBit(mKnown, from));
+        setBit(mAllowed, to, getBit(mAllowed, from));
+    }
+
+    private static boolean getBit(long[] bits, int index) {
+        return (bits[index >> 6] & (1L << index)) != 0;
+    }
+
+    private static void setBit(long[] bits, int index, boolean value) {
+        if (value) {
+            bits[index >> 6] |= 1L << index;
+        } else {
+            bits[index >> 6] &= ~(1L << index);
+        }
+    }
+}
@@ -0,0 +1,218 @@
+/*
+ * Copyright 2014 François Blavoet
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.codecraft.swipedismissrecyclerview;
+
+import android.content.ComponentCallbacks2;
+import android.content.Context;
+import android.content.res.Configuration;
+import android.support.v7.widget.RecyclerView;
+import android.util.LruCache;
+import android.view.View;
+
+/**
+ * Keeps the last dismissed view holders of a {@link RecyclerView} with stable ids, still bound, so
+ * that an item put back right after its dismissal (an undo, a failed delete, a sync conflict) gets
+ * its old holder back rather than a recycled one to bind from scratch.
+ *
+ * <p>Dismissed holders are kept from the pool, which would reset them, and are handed back through
+ * a {@link RecyclerView.ViewCacheExtension} when an item with the same id is laid out again.
+ * RecyclerView still calls {@code onBindViewHolder} for them; the adapter skips the work with
+ * {@link #consumeWarmBind(RecyclerView.ViewHolder)}:</p>
+ *
+ * <pre>
+ * DismissedHolderCache holderCache = new DismissedHolderCache(recyclerView, 2048);
+ * touchListener.setDismissedHolderCache(holderCache);
+ * ...
+ * public void onBindViewHolder(MyViewHolder holder, int position) {
+ *     if (mHolderCache.consumeWarmBind(holder)) {
+ *         return;
+ *     }
+ *     ...
+ * }
+ * </pre>
+ *
+ * <p>The cache is bounded by an estimate of the memory its holders use, and is emptied when the
+ * system asks the application to trim its memory. It replaces any other view cache extension of the
+ * {@link RecyclerView}. All methods must be called from the main thread.</p>
+ *
+ * <p>To hear about memory pressure, the cache registers itself on the application context, which
+ * then holds the cache, its {@link RecyclerView} and through it the whole {@code Activity}.
+ * {@link #release()} must be called when the {@link RecyclerView} is destroyed, or the
+ * {@code Activity} leaks.</p>
+ */
+public class DismissedHolderCache extends RecyclerView.ViewCacheExtension implements ComponentCallbacks2 {
+
+    // Fixed properties
+    private final RecyclerView mRecyclerView;
+    private final Context mContext;
+    private final LruCache<Long, Entry> mHolders;
+
+    // Transient properties
+    private RecyclerView.ViewHolder mWarmHolder;
+    private RecyclerView.ViewHolder mSpareHolder;
+    private long mWarmId;
+    private boolean mReleased;
+
+
+    /**
+     * @param recyclerView  the {@link RecyclerView}, whose adapter must have stable ids
+     * @param maxKilobytes  how much memory the dismissed holders may use at most, as estimated from
+     *                      the size of their rows
+     */
+    public DismissedHolderCache(RecyclerView recyclerView, int maxKilobytes) {
+        if (maxKilobytes <= 0) {
+            throw new IllegalArgumentException("invalid max");
+        }
+        mRecyclerView = recyclerView;
+        mContext = recyclerView.getContext().getApplicationContext();
+        mHolders = new LruCache<Long, Entry>(maxKilobytes) {
+            @Override
+            protected int sizeOf(Long key, Entry value) {
+                return value.kilobytes;
+            }
+
+            @Override
+            protected void entryRemoved(boolean evicted, Long key, Entry oldValue, Entry newValue) {
+                if (evicted || newValue != null) {
+                    // unpinned but detached, it is simply left to the garbage collector
+                    oldValue.holder.setIsRecyclable(true);
+                }
+            }
+        };
+        recyclerView.setViewCacheExtension(this);
+        mContext.registerComponentCallbacks(this);
+    }
+
+    /**
+     * Tells whether the given holder is being bound to the item it showed when it was dismissed, in
+     * which case the adapter can skip binding it. The answer is only true once, for the bind that
+     * follows the re-insert.
+     *
+     * @param holder the holder passed to {@code onBindViewHolder}
+     * @return whether the holder still shows its item
+     */
+    public boolean consumeWarmBind(RecyclerView.ViewHolder holder) {
+        RecyclerView.ViewHolder warmHolder = mWarmHolder;
+        mWarmHolder = null;
+        restoreSpareHolder();
+        return warmHolder == holder && holder.getItemId() == mWarmId;
+    }
+
+    /**
+     * Drops all the kept holders, stops listening to memory events and detaches from the
+     * {@link RecyclerView}.
+     */
+    public void release() {
+        if (mReleased) {
+            return;
+        }
+        mReleased = true;
+        mHolders.evictAll();
+        mWarmHolder = null;
+        restoreSpareHolder();
+        mContext.unregisterComponentCallbacks(this);
+        mRecyclerView.setViewCacheExtension(null);
+    }
+
+    /**
+     * Keeps the given holder, which is being dismissed, from the pool until its item comes back or
+     * it is evicted.
+     */
+    void onDismissed(RecyclerView.ViewHolder holder) {
+        RecyclerView.Adapter adapter = mRecyclerView.getAdapter();
+        if (mReleased || adapter == null || !adapter.hasStableIds()
+                || holder.getItemId() == RecyclerView.NO_ID) {
+            return;
+        }
+        holder.setIsRecyclable(false);
+        View itemView = holder.itemView;
+        // the rendered row dominates what a bound holder costs; its drawables are usually shared
+        long bytes = (long) itemView.getWidth() * itemView.getHeight() * 4;
+        mHolders.put(holder.getItemId(), new Entry(holder, (int) Math.max(1, bytes / 1024)));
+    }
+
+    @Override
+    public View getViewForPositionAndType(RecyclerView.Recycler recycler, int position, int type) {
+        // the adapter may not have bound the holder handed out after the last call
+        restoreSpareHolder();
+        RecyclerView.Adapter adapter = mRecyclerView.getAdapter();
+        if (mHolders.size() == 0 || adapter == null || !adapter.hasStableIds()) {
+            return null;
+        }
+        long id = adapter.getItemId(position);
+        Entry entry = mHolders.get(id);
+        // a row still animating its removal stays where it is, and is kept for a later re-insert
+        if (entry == null || entry.holder.getItemViewType() != type
+                || entry.holder.itemView.getParent() != null) {
+            return null;
+        }
+        RecyclerView.ViewHolder holder = entry.holder;
+        mHolders.remove(id);
+        holder.setIsRecyclable(true);
+        // the dismissal may have left it hidden
+        holder.itemView.setTranslationX(0);
+        holder.itemView.setAlpha(1);
+        // The internal state of the holder can only be reset by the pool, so it goes through it:
+        // returning null makes the recycler ask the pool for this type right away, and the pool
+        // hands out the last holder it received. The pool drops what it is given once it holds
+        // its maximum for a type though, so a slot is freed first, and the holder taken out to
+        // free it is put back once ours has been handed out.
+        RecyclerView.RecycledViewPool pool = mRecyclerView.getRecycledViewPool();
+        mSpareHolder = pool.getRecycledView(type);
+        pool.putRecycledView(holder);
+        mWarmHolder = holder;
+        mWarmId = id;
+        return null;
+    }
+
+    private void restoreSpareHolder() {
+        if (mSpareHolder != null) {
+            mRecyclerView.getRecycledViewPool().putRecycledView(mSpareHolder);
+            mSpareHolder = null;
+        }
+    }
+
+    @Override
+    public void onTrimMemory(int level) {
+        if (level >= TRIM_MEMORY_UI_HIDDEN) {
+            // nothing can be put back while the user is away
+            mHolders.evictAll();
+        } else if (level >= TRIM_MEMORY_RUNNING_LOW) {
+            mHolders.trimToSize(mHolders.size() / 2);
+        }
+    }
+
+    @Override
+    public void onLowMemory() {
+        mHolders.evictAll();
+    }
+
+    @Override
+    public void onConfigurationChanged(Configuration newConfig) {
+    }
+
+
+    private static final class Entry {
+        final RecyclerView.ViewHolder holder;
+        final int kilobytes;
+
+        Entry(RecyclerView.ViewHolder holder, int kilobytes) {
+            this.holder = holder;
+            this.kilobytes = kilobytes;
+        }
+    }
+}
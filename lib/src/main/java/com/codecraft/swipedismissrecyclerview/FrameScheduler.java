@@ -0,0 +1,137 @@
+/*
+ * Copyright 2014 François Blavoet
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.codecraft.swipedismissrecyclerview;
+
+import android.annotation.TargetApi;
+import android.content.Context;
+import android.os.Build;
+import android.os.Handler;
+import android.os.Looper;
+import android.view.Choreographer;
+import android.view.WindowManager;
+
+/**
+ * Runs a callback once on the next frame of the main thread.
+ *
+ * <p>Uses {@link Choreographer} where available (API level 16) and falls back to a {@link Handler}
+ * posting every 16ms on older releases. Scheduling several times before the frame only runs the
+ * callback once. Must be used from the main thread.</p>
+ */
+final class FrameScheduler {
+
+    interface Callback {
+        /**
+         * @param frameTimeNanos the time the frame started, in the {@link System#nanoTime()} time base
+         */
+        void doFrame(long frameTimeNanos);
+    }
+
+    private static final long FALLBACK_FRAME_DELAY = 16;
+
+    private final Callback mCallback;
+    private final Object mFrameCallback; // a Choreographer.FrameCallback, kept as an Object for API 15
+    private final Handler mHandler;
+    private final Runnable mRunnable;
+    private boolean mScheduled;
+
+    FrameScheduler(Callback callback) {
+        mCallback = callback;
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN) {
+            mFrameCallback = new ChoreographerCallback(this);
+            mHandler = null;
+            mRunnable = null;
+        } else {
+            mFrameCallback = null;
+            mHandler = new Handler(Looper.getMainLooper());
+            mRunnable = new Runnable() {
+                @Override
+                public void run() {
+                    dispatchFrame(System.nanoTime());
+                }
+            };
+        }
+    }
+
+    /**
+     * @return the time between two frames of the default display, in ns
+     */
+    static long getFrameIntervalNanos(Context context) {
+        float refreshRate = ((WindowManager) context.getSystemService(Context.WINDOW_SERVICE))
+                .getDefaultDisplay().getRefreshRate();
+        if (refreshRate < 10) {
+            // some devices report nonsense
+            refreshRate = 60;
+        }
+        return (long) (1000000000L / refreshRate);
+    }
+
+    void schedule() {
+        if (mScheduled) {
+            return;
+        }
+        mScheduled = true;
+        if (mFrameCallback != null) {
+            ((ChoreographerCallback) mFrameCallback).post();
+        } else {
+            mHandler.postDelayed(mRunnable, FALLBACK_FRAME_DELAY);
+        }
+    }
+
+    void cancel() {
+        if (!mScheduled) {
+            return;
+        }
+        mScheduled = false;
+        if (mFrameCallback != null) {
+            ((ChoreographerCallback) mFrameCallback).remove();
+        } else {
+            mHandler.removeCallbacks(mRunnable);
+        }
+    }
+
+    boolean isScheduled() {
+        return mScheduled;
+    }
+
+    private void dispatchFrame(long frameTimeNanos) {
+        mScheduled = false;
+        mCallback.doFrame(frameTimeNanos);
+    }
+
+    @TargetApi(Build.VERSION_CODES.JELLY_BEAN)
+    private static class ChoreographerCallback implements Choreographer.FrameCallback {
+        private final FrameScheduler mScheduler;
+
+        ChoreographerCallback(FrameScheduler scheduler) {
+            mScheduler = scheduler;
+        }
+
+        void post() {
+            Choreographer.getInstance().postFrameCallback(this);
+        }
+
+        void remove() {
+            Choreographer.getInstance().removeFrameCallback(this);
+        }
+
+        @Override
+        public void doFrame(long frameTimeNanos) {
+            mScheduler.dispatchFrame(frameTimeNanos);
+        }
+    }
+}
@@ -0,0 +1,65 @@
+/*
+ * Copyright 2014 François Blavoet
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.codecraft.swipedismissrecyclerview;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * The file format shared by {@link GestureTraceRecorder} and {@link GestureTraceReplayer}, kept
+ * free of Android so that traces can be written and read on the JVM.
+ *
+ * <p>A trace is big-endian: a header (magic, version, sample count, base time) followed by 26 bytes
+ * per sample (action, pointer id, time offset from the base time in ms, raw x, raw y, view width,
+ * velocity x, velocity y).</p>
+ */
+final class GestureTraceFormat {
+
+    static final int MAGIC = 0x53445452; // "SDTR"
+    static final int VERSION = 2;
+
+    private GestureTraceFormat() {
+    }
+
+    /**
+     * Writes the first {@code count} samples of the given arrays. The stream is flushed but not
+     * closed.
+     */
+    static void write(OutputStream out, int count, long[] times, byte[] actions, byte[] pointerIds,
+                      float[] rawX, float[] rawY, int[] viewWidths, float[] velocityX, float[] velocityY)
+            throws IOException {
+        DataOutputStream data = new DataOutputStream(new BufferedOutputStream(out));
+        long baseTime = count > 0 ? times[0] : 0;
+        data.writeInt(MAGIC);
+        data.writeShort(VERSION);
+        data.writeInt(count);
+        data.writeLong(baseTime);
+        for (int i = 0; i < count; i++) {
+            data.writeByte(actions[i]);
+            data.writeByte(pointerIds[i]);
+            data.writeInt((int) (times[i] - baseTime));
+            data.writeFloat(rawX[i]);
+            data.writeFloat(rawY[i]);
+            data.writeInt(viewWidths[i]);
+            data.writeFloat(velocityX[i]);
+            data.writeFloat(velocityY[i]);
+        }
+        data.flush();
+    }
+}
@@ -0,0 +1,205 @@
+/*
+ * Copyright 2014 François Blavoet
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.codecraft.swipedismissrecyclerview;
+
+import android.view.MotionEvent;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Records the {@link MotionEvent}s seen by a swipe listener, so that field gesture problems can be
+ * replayed with {@link GestureTraceReplayer}.
+ *
+ * <p>Samples are stored in arrays preallocated for a fixed capacity: recording does not allocate,
+ * and samples arriving once the buffer is full are dropped and counted. For each event, the
+ * historical samples batched into it are recorded first, then the event itself, with the id and
+ * the raw coordinates of the pointer that triggered the action. The swipe listener adds what it
+ * measured itself: the width of the touched view to down events, 0 when it did not track the
+ * gesture, and the release velocity it used to up events.</p>
+ *
+ * <p>The trace is written with {@link #writeTo(OutputStream)} in the compact format of
+ * {@link GestureTraceFormat}. Velocities are NaN when they were not recorded.</p>
+ */
+public class GestureTraceRecorder {
+
+    private final long[] mTimes;
+    private final byte[] mActions;
+    private final byte[] mPointerIds;
+    private final float[] mRawX;
+    private final float[] mRawY;
+    private final int[] mViewWidths;
+    private final float[] mVelocityX;
+    private final float[] mVelocityY;
+    private int mLastEventIndex = -1;
+    private int mCount;
+    private int mDropped;
+    private boolean mRecording;
+
+    /**
+     * @param capacity the maximum number of samples to record, including historical ones
+     */
+    public GestureTraceRecorder(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("invalid capacity");
+        }
+        mTimes = new long[capacity];
+        mActions = new byte[capacity];
+        mPointerIds = new byte[capacity];
+        mRawX = new float[capacity];
+        mRawY = new float[capacity];
+        mViewWidths = new int[capacity];
+        mVelocityX = new float[capacity];
+        mVelocityY = new float[capacity];
+    }
+
+    /**
+     * Starts or resumes recording.
+     */
+    public void start() {
+        mRecording = true;
+    }
+
+    /**
+     * Stops recording. The recorded samples are kept until {@link #clear()}.
+     */
+    public void stop() {
+        mRecording = false;
+    }
+
+    public boolean isRecording() {
+        return mRecording;
+    }
+
+    /**
+     * Drops the recorded samples.
+     */
+    public void clear() {
+        mCount = 0;
+        mDropped = 0;
+    }
+
+    /**
+     * @return the number of recorded samples
+     */
+    public int getSampleCount() {
+        return mCount;
+    }
+
+    /**
+     * @return the number of samples dropped because the buffer was full
+     */
+    public int getDroppedCount() {
+        return mDropped;
+    }
+
+    /**
+     * Records an event and its historical samples, if recording.
+     */
+    public void record(MotionEvent event) {
+        if (!mRecording) {
+            return;
+        }
+
+        int actionIndex = event.getActionIndex();
+        int pointerId = event.getPointerId(actionIndex);
+        // only the first pointer has raw coordinates before API 29, but the offset from the local
+        // ones is the same for all pointers and samples
+        float offsetX = event.getRawX() - event.getX();
+        float offsetY = event.getRawY() - event.getY();
+        int historySize = event.getHistorySize();
+        for (int h = 0; h < historySize; h++) {
+            add(MotionEvent.ACTION_MOVE | GestureTraceReplayer.FLAG_HISTORICAL, pointerId,
+                    event.getHistoricalX(actionIndex, h) + offsetX, event.getHistoricalY(actionIndex, h) + offsetY,
+                    event.getHistoricalEventTime(h));
+        }
+        mLastEventIndex = add(event.getActionMasked(), pointerId, event.getX(actionIndex) + offsetX,
+                event.getY(actionIndex) + offsetY, event.getEventTime());
+    }
+
+    /**
+     * Completes the down event just recorded.
+     *
+     * @param viewWidth the width of the view the gesture tracks, 0 if it is not tracked
+     */
+    void setDownViewWidth(int viewWidth) {
+        if (isLastEvent(MotionEvent.ACTION_DOWN)) {
+            mViewWidths[mLastEventIndex] = viewWidth;
+        }
+    }
+
+    /**
+     * Completes the up event just recorded.
+     *
+     * @param velocityX the release velocity the gesture was decided with, in px/s
+     * @param velocityY the vertical release velocity, in px/s
+     */
+    void setReleaseVelocity(float velocityX, float velocityY) {
+        if (isLastEvent(MotionEvent.ACTION_UP)) {
+            mVelocityX[mLastEventIndex] = velocityX;
+            mVelocityY[mLastEventIndex] = velocityY;
+        }
+    }
+
+    private boolean isLastEvent(int action) {
+        // the event may have been dropped, or recorded while stopped
+        return mRecording && mLastEventIndex >= 0 && mLastEventIndex == mCount - 1
+                && mActions[mLastEventIndex] == action;
+    }
+
+    /**
+     * @return the index of the sample, or -1 if it was dropped
+     */
+    private int add(int action, int pointerId, float rawX, float rawY, long time) {
+        if (mCount == mTimes.length) {
+            mDropped++;
+            return -1;
+        }
+        mActions[mCount] = (byte) action;
+        mPointerIds[mCount] = (byte) pointerId;
+        mRawX[mCount] = rawX;
+        mRawY[mCount] = rawY;
+        mTimes[mCount] = time;
+        mViewWidths[mCount] = 0;
+        mVelocityX[mCount] = Float.NaN;
+        mVelocityY[mCount] = Float.NaN;
+        return mCount++;
+    }
+
+    /**
+     * Writes the recorded samples to a file.
+     */
+    public void writeTo(File file) throws IOException {
+        OutputStream out = new FileOutputStream(file);
+        try {
+            writeTo(out);
+        } finally {
+            out.close();
+        }
+    }
+
+    /**
+     * Writes the recorded samples to a stream. The stream is flushed but not closed.
+     */
+    public void writeTo(OutputStream out) throws IOException {
+        GestureTraceFormat.write(out, mCount, mTimes, mActions, mPointerIds, mRawX, mRawY, mViewWidths,
+                mVelocityX, mVelocityY);
+    }
+}
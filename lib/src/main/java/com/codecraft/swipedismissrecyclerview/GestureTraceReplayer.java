@@ -0,0 +1,153 @@
+/*
+ * Copyright 2014 François Blavoet
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.codecraft.swipedismissrecyclerview;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Replays a trace written by {@link GestureTraceRecorder}.
+ *
+ * <p>This class does not depend on Android: it reads the whole trace up front and then feeds its
+ * samples, in order, to a {@link Target}, so the same trace always drives the target through the
+ * same sequence of calls, on a device or on the JVM.</p>
+ *
+ * <p>{@link SwipeGestureCore} is a {@link Target}: replaying a trace recorded by
+ * {@link SwipeDismissRecyclerViewItemTouchListener} into a core built with the same slop and fling
+ * velocities reproduces the decisions the listener took, using the view widths and release
+ * velocities it recorded. Two cases are not reproduced: gestures that took a row over from a
+ * running animation, which start from a translation the trace does not hold, and moves received
+ * while swiping was paused by a scroll.</p>
+ */
+public class GestureTraceReplayer {
+
+    // Action values, the same as the ones of android.view.MotionEvent
+    public static final int ACTION_DOWN = 0;
+    public static final int ACTION_UP = 1;
+    public static final int ACTION_MOVE = 2;
+    public static final int ACTION_CANCEL = 3;
+
+    /**
+     * Set on the action of samples that were batched as history into a later event.
+     */
+    public static final int FLAG_HISTORICAL = 0x80;
+
+    /**
+     * Receives the replayed samples.
+     */
+    public interface Target {
+        /**
+         * @param action     the masked action, one of the {@code ACTION_*} values
+         * @param pointerId  the id of the pointer that triggered the action
+         * @param rawX       the raw x coordinate, in px
+         * @param rawY       the raw y coordinate, in px
+         * @param eventTime  the time of the sample, in ms, in the time base of the recording
+         * @param historical whether the sample was batched as history into a later event
+         * @param viewWidth  for {@link #ACTION_DOWN}, the width of the view the listener tracked, in
+         *                   px, or 0 if it did not track the gesture; 0 for other actions
+         * @param velocityX  for {@link #ACTION_UP}, the release velocity the listener used, in px/s,
+         *                   or NaN if it was not recorded; NaN for other actions
+         * @param velocityY  the same as {@code velocityX}, along y
+         */
+        void onSample(int action, int pointerId, float rawX, float rawY, long eventTime, boolean historical,
+                      int viewWidth, float velocityX, float velocityY);
+    }
+
+    private final long[] mTimes;
+    private final byte[] mActions;
+    private final byte[] mPointerIds;
+    private final float[] mRawX;
+    private final float[] mRawY;
+    private final int[] mViewWidths;
+    private final float[] mVelocityX;
+    private final float[] mVelocityY;
+
+    private GestureTraceReplayer(int count) {
+        mTimes = new long[count];
+        mActions = new byte[count];
+        mPointerIds = new byte[count];
+        mRawX = new float[count];
+        mRawY = new float[count];
+        mViewWidths = new int[count];
+        mVelocityX = new float[count];
+        mVelocityY = new float[count];
+    }
+
+    /**
+     * Reads a trace from a file.
+     */
+    public static GestureTraceReplayer read(File file) throws IOException {
+        InputStream in = new FileInputStream(file);
+        try {
+            return read(in);
+        } finally {
+            in.close();
+        }
+    }
+
+    /**
+     * Reads a trace from a stream. The stream is not closed.
+     */
+    public static GestureTraceReplayer read(InputStream in) throws IOException {
+        DataInputStream data = new DataInputStream(new BufferedInputStream(in));
+        if (data.readInt() != GestureTraceFormat.MAGIC) {
+            throw new IOException("not a gesture trace");
+        }
+        int version = data.readShort();
+        if (version != GestureTraceFormat.VERSION) {
+            throw new IOException("unsupported gesture trace version " + version);
+        }
+        int count = data.readInt();
+        if (count < 0) {
+            throw new IOException("invalid sample count " + count);
+        }
+        long baseTime = data.readLong();
+
+        GestureTraceReplayer replayer = new GestureTraceReplayer(count);
+        for (int i = 0; i < count; i++) {
+            replayer.mActions[i] = data.readByte();
+            replayer.mPointerIds[i] = data.readByte();
+            replayer.mTimes[i] = baseTime + data.readInt();
+            replayer.mRawX[i] = data.readFloat();
+            replayer.mRawY[i] = data.readFloat();
+            replayer.mViewWidths[i] = data.readInt();
+            replayer.mVelocityX[i] = data.readFloat();
+            replayer.mVelocityY[i] = data.readFloat();
+        }
+        return replayer;
+    }
+
+    public int getSampleCount() {
+        return mTimes.length;
+    }
+
+    /**
+     * Feeds every sample of the trace to the target, in recording order.
+     */
+    public void replay(Target target) {
+        for (int i = 0; i < mTimes.length; i++) {
+            int action = mActions[i] & 0xff;
+            target.onSample(action & ~FLAG_HISTORICAL, mPointerIds[i], mRawX[i], mRawY[i], mTimes[i],
+                    (action & FLAG_HISTORICAL) != 0, mViewWidths[i], mVelocityX[i], mVelocityY[i]);
+        }
+    }
+}
@@ -0,0 +1,287 @@
+/*
+ * Copyright 2014 François Blavoet
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.codecraft.swipedismissrecyclerview;
+
+import android.support.v7.widget.RecyclerView;
+import android.view.View;
+import android.view.ViewTreeObserver;
+
+/**
+ * A {@link ChildHitTester} for grids and other layouts showing many small children at once.
+ *
+ * <p>The laid out children are bucketed, by their own bounds, into a uniform grid of cells sized
+ * after the smallest child, so that a hit test only looks at the few children overlapping one cell.
+ * Rows swiped or slid out by the swipe listeners only move along x, so a miss looks at the other
+ * cells of the same row of cells; only while the item animator moves children around are all of
+ * them scanned.</p>
+ *
+ * <p>The index is rebuilt lazily, on the first hit test following a layout pass or a scroll.
+ * Layout passes are observed through the {@link ViewTreeObserver} of the {@link RecyclerView};
+ * scrolls move the children without one, so they must be reported with {@link #invalidate()},
+ * which the scroll listener of
+ * {@link SwipeDismissRecyclerViewItemTouchListener#makeScrollListener()} does.</p>
+ */
+public class GridChildHitTester implements ChildHitTester {
+
+    // Bounds the size of the index when a few children are much smaller than the others
+    private static final int MAX_CELLS_PER_CHILD = 8;
+
+    private final ViewTreeObserver.OnGlobalLayoutListener mLayoutListener = new ViewTreeObserver.OnGlobalLayoutListener() {
+        @Override
+        public void onGlobalLayout() {
+            invalidate();
+        }
+    };
+    private RecyclerView mObservedView;
+    private ViewTreeObserver mObserver;
+
+    // Signature of the layout the index was built for
+    private int mIndexedChildCount = -1;
+    private View mIndexedFirstChild;
+    private int mIndexedFirstLeft;
+    private int mIndexedFirstTop;
+    private View mIndexedLastChild;
+    private int mIndexedLastLeft;
+    private int mIndexedLastTop;
+
+    // Index, stored as a compressed sparse row: the children of cell c are
+    // mCellChildren[mCellStarts[c]] to mCellChildren[mCellStarts[c + 1] - 1]
+    private int mOriginX;
+    private int mOriginY;
+    private int mCellWidth = 1;
+    private int mCellHeight = 1;
+    private int mColumns;
+    private int mRows;
+    private int[] mCellStarts = new int[0];
+    private int[] mCellChildren = new int[0];
+    private int[] mCellFill = new int[0];
+
+    @Override
+    public View findChildUnder(RecyclerView recyclerView, float x, float y) {
+        int childCount = recyclerView.getChildCount();
+        if (childCount == 0) {
+            return null;
+        }
+        observe(recyclerView);
+        if (!isIndexValid(recyclerView, childCount)) {
+            buildIndex(recyclerView, childCount);
+        }
+
+        RecyclerView.ItemAnimator animator = recyclerView.getItemAnimator();
+        if (animator != null && animator.isRunning()) {
+            // the animated children may be anywhere
+            return LinearChildHitTester.scan(recyclerView, x, y);
+        }
+
+        int column = (int) Math.floor((x - mOriginX) / mCellWidth);
+        int row = (int) Math.floor((y - mOriginY) / mCellHeight);
+        if (row < 0 || row >= mRows) {
+            return null;
+        }
+        if (column >= 0 && column < mColumns) {
+            View child = findChildInCell(recyclerView, row * mColumns + column, x, y);
+            if (child != null) {
+                return child;
+            }
+        }
+        // a swiped child may have left its cell, but not its row of cells
+        for (int c = 0; c < mColumns; c++) {
+            if (c != column) {
+                View child = findChildInCell(recyclerView, row * mColumns + c, x, y);
+                if (child != null) {
+                    return child;
+                }
+            }
+        }
+        return null;
+    }
+
+    private View findChildInCell(RecyclerView recyclerView, int cell, float x, float y) {
+        // last child first: it is drawn on top
+        for (int i = mCellStarts[cell + 1] - 1; i >= mCellStarts[cell]; i--) {
+            View child = recyclerView.getChildAt(mCellChildren[i]);
+            if (LinearChildHitTester.contains(child, x, y)
+                    && !LinearChildHitTester.isRemoving(recyclerView, child)) {
+                return child;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Drops the index, forcing a rebuild on the next hit test.
+     */
+    public void invalidate() {
+        mIndexedChildCount = -1;
+        mIndexedFirstChild = null;
+        mIndexedLastChild = null;
+    }
+
+    /**
+     * Stops observing the layout passes of the last {@link RecyclerView} hit tested, and drops the
+     * index.
+     */
+    public void release() {
+        if (mObserver != null && mObserver.isAlive()) {
+            removeLayoutListener(mObserver);
+        }
+        mObserver = null;
+        mObservedView = null;
+        invalidate();
+    }
+
+    /**
+     * Drops the index after every layout pass of the given {@link RecyclerView}, which may have moved
+     * any of its children.
+     */
+    private void observe(RecyclerView recyclerView) {
+        // the observer of a detached view is merged into the window's on attach
+        ViewTreeObserver observer = recyclerView.getViewTreeObserver();
+        if (recyclerView == mObservedView && observer == mObserver && observer.isAlive()) {
+            return;
+        }
+        if (mObserver != null && mObserver.isAlive()) {
+            removeLayoutListener(mObserver);
+        }
+        mObservedView = recyclerView;
+        mObserver = observer;
+        observer.addOnGlobalLayoutListener(mLayoutListener);
+        invalidate();
+    }
+
+    @SuppressWarnings("deprecation")
+    private void removeLayoutListener(ViewTreeObserver observer) {
+        // removeOnGlobalLayoutListener is API 16
+        observer.removeGlobalOnLayoutListener(mLayoutListener);
+    }
+
+    private boolean isIndexValid(RecyclerView recyclerView, int childCount) {
+        if (childCount != mIndexedChildCount) {
+            return false;
+        }
+        View first = recyclerView.getChildAt(0);
+        View last = recyclerView.getChildAt(childCount - 1);
+        return first == mIndexedFirstChild && first.getLeft() == mIndexedFirstLeft && first.getTop() == mIndexedFirstTop
+                && last == mIndexedLastChild && last.getLeft() == mIndexedLastLeft && last.getTop() == mIndexedLastTop;
+    }
+
+    private void buildIndex(RecyclerView recyclerView, int childCount) {
+        View first = recyclerView.getChildAt(0);
+        View last = recyclerView.getChildAt(childCount - 1);
+        mIndexedChildCount = childCount;
+        mIndexedFirstChild = first;
+        mIndexedFirstLeft = first.getLeft();
+        mIndexedFirstTop = first.getTop();
+        mIndexedLastChild = last;
+        mIndexedLastLeft = last.getLeft();
+        mIndexedLastTop = last.getTop();
+
+        int minX = Integer.MAX_VALUE;
+        int minY = Integer.MAX_VALUE;
+        int maxX = Integer.MIN_VALUE;
+        int maxY = Integer.MIN_VALUE;
+        int minWidth = Integer.MAX_VALUE;
+        int minHeight = Integer.MAX_VALUE;
+        for (int i = 0; i < childCount; i++) {
+            View child = recyclerView.getChildAt(i);
+            minX = Math.min(minX, child.getLeft());
+            minY = Math.min(minY, child.getTop());
+            maxX = Math.max(maxX, child.getRight());
+            maxY = Math.max(maxY, child.getBottom());
+            if (child.getWidth() > 0 && child.getHeight() > 0) {
+                // every child then overlaps whole cells, whatever its span size
+                minWidth = Math.min(minWidth, child.getWidth());
+                minHeight = Math.min(minHeight, child.getHeight());
+            }
+        }
+
+        mOriginX = minX;
+        mOriginY = minY;
+        mCellWidth = minWidth == Integer.MAX_VALUE ? 1 : minWidth;
+        mCellHeight = minHeight == Integer.MAX_VALUE ? 1 : minHeight;
+        while (true) {
+            mColumns = Math.max(1, (maxX - minX + mCellWidth - 1) / mCellWidth);
+            mRows = Math.max(1, (maxY - minY + mCellHeight - 1) / mCellHeight);
+            if ((long) mColumns * mRows <= (long) MAX_CELLS_PER_CHILD * childCount) {
+                break;
+            }
+            mCellWidth *= 2;
+            mCellHeight *= 2;
+        }
+        int cellCount = mColumns * mRows;
+
+        if (mCellStarts.length < cellCount + 1) {
+            mCellStarts = new int[cellCount + 1];
+        } else {
+            for (int c = 0; c <= cellCount; c++) {
+                mCellStarts[c] = 0;
+            }
+        }
+
+        // first pass counts the children of each cell, second pass fills them in
+        int entries = 0;
+        for (int i = 0; i < childCount; i++) {
+            View child = recyclerView.getChildAt(i);
+            int fromColumn = columnOf(child.getLeft());
+            int toColumn = columnOf(child.getRight() - 1);
+            int fromRow = rowOf(child.getTop());
+            int toRow = rowOf(child.getBottom() - 1);
+            for (int row = fromRow; row <= toRow; row++) {
+                for (int column = fromColumn; column <= toColumn; column++) {
+                    mCellStarts[row * mColumns + column + 1]++;
+                    entries++;
+                }
+            }
+        }
+        for (int c = 0; c < cellCount; c++) {
+            mCellStarts[c + 1] += mCellStarts[c];
+        }
+
+        if (mCellChildren.length < entries) {
+            mCellChildren = new int[entries];
+        }
+        if (mCellFill.length < cellCount) {
+            mCellFill = new int[cellCount];
+        } else {
+            for (int c = 0; c < cellCount; c++) {
+                mCellFill[c] = 0;
+            }
+        }
+        for (int i = 0; i < childCount; i++) {
+            View child = recyclerView.getChildAt(i);
+            int fromColumn = columnOf(child.getLeft());
+            int toColumn = columnOf(child.getRight() - 1);
+            int fromRow = rowOf(child.getTop());
+            int toRow = rowOf(child.getBottom() - 1);
+            for (int row = fromRow; row <= toRow; row++) {
+                for (int column = fromColumn; column <= toColumn; column++) {
+                    int cell = row * mColumns + column;
+                    mCellChildren[mCellStarts[cell] + mCellFill[cell]++] = i;
+                }
+            }
+        }
+    }
+
+    private int columnOf(int x) {
+        return Math.max(0, Math.min(mColumns - 1, (x - mOriginX) / mCellWidth));
+    }
+
+    private int rowOf(int y) {
+        return Math.max(0, Math.min(mRows - 1, (y - mOriginY) / mCellHeight));
+    }
+}
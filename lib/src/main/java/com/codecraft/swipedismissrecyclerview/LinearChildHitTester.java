@@ -0,0 +1,118 @@
+/*
+ * Copyright 2014 François Blavoet
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.codecraft.swipedismissrecyclerview;
+
+import android.support.v7.widget.GridLayoutManager;
+import android.support.v7.widget.LinearLayoutManager;
+import android.support.v7.widget.RecyclerView;
+import android.view.View;
+
+/**
+ * A {@link ChildHitTester} for {@link LinearLayoutManager}s: the children of a linear layout are
+ * ordered along its orientation, so the touched child is found with a binary search over them.
+ *
+ * <p>While an item animation is running, disappearing children may be out of order; a miss then
+ * falls back to a linear scan. Children whose removal a {@link SwipeDismissItemAnimator} is still
+ * animating are never returned. Any other {@link RecyclerView.LayoutManager}, including a
+ * {@link GridLayoutManager} with more than one span, is always scanned.</p>
+ */
+public class LinearChildHitTester implements ChildHitTester {
+
+    @Override
+    public View findChildUnder(RecyclerView recyclerView, float x, float y) {
+        int childCount = recyclerView.getChildCount();
+        if (childCount == 0) {
+            return null;
+        }
+
+        RecyclerView.LayoutManager layoutManager = recyclerView.getLayoutManager();
+        if (!(layoutManager instanceof LinearLayoutManager) || (layoutManager instanceof GridLayoutManager
+                && ((GridLayoutManager) layoutManager).getSpanCount() > 1)) {
+            // the children of a grid are not ordered along a single axis
+            return scan(recyclerView, x, y);
+        }
+
+        boolean vertical = ((LinearLayoutManager) layoutManager).getOrientation() == LinearLayoutManager.VERTICAL;
+        float coordinate = vertical ? y : x;
+        boolean ascending = start(recyclerView.getChildAt(0), vertical)
+                <= start(recyclerView.getChildAt(childCount - 1), vertical);
+
+        int low = 0;
+        int high = childCount - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            View child = recyclerView.getChildAt(middle);
+            float start = start(child, vertical);
+            if (coordinate < start) {
+                if (ascending) {
+                    high = middle - 1;
+                } else {
+                    low = middle + 1;
+                }
+            } else if (coordinate >= start + (vertical ? child.getHeight() : child.getWidth())) {
+                if (ascending) {
+                    low = middle + 1;
+                } else {
+                    high = middle - 1;
+                }
+            } else {
+                if (contains(child, x, y) && !isRemoving(recyclerView, child)) {
+                    return child;
+                }
+                break;
+            }
+        }
+
+        RecyclerView.ItemAnimator animator = recyclerView.getItemAnimator();
+        if (animator != null && animator.isRunning()) {
+            return scan(recyclerView, x, y);
+        }
+        return null;
+    }
+
+    private static float start(View child, boolean vertical) {
+        return vertical ? child.getTop() + child.getTranslationY() : child.getLeft() + child.getTranslationX();
+    }
+
+    static View scan(RecyclerView recyclerView, float x, float y) {
+        // last child first: it is drawn on top
+        for (int i = recyclerView.getChildCount() - 1; i >= 0; i--) {
+            View child = recyclerView.getChildAt(i);
+            if (contains(child, x, y) && !isRemoving(recyclerView, child)) {
+                return child;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return whether the given child is still drawn by a {@link SwipeDismissItemAnimator} while its
+     * item is already removed, in which case it must not be touched
+     */
+    static boolean isRemoving(RecyclerView recyclerView, View child) {
+        RecyclerView.ItemAnimator animator = recyclerView.getItemAnimator();
+        return animator instanceof SwipeDismissItemAnimator
+                && ((SwipeDismissItemAnimator) animator).isRemoving(recyclerView.getChildViewHolder(child));
+    }
+
+    static boolean contains(View child, float x, float y) {
+        float left = child.getLeft() + child.getTranslationX();
+        float top = child.getTop() + child.getTranslationY();
+        return x >= left && x < left + child.getWidth() && y >= top && y < top + child.getHeight();
+    }
+}
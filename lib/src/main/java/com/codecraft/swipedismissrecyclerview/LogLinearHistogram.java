@@ -0,0 +1,141 @@
+/*
+ * Copyright 2014 François Blavoet
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.codecraft.swipedismissrecyclerview;
+
+/**
+ * A histogram of non-negative durations, in ms, with fixed log-linear buckets.
+ *
+ * <p>Values below 16 each have their own bucket. Every power of two above that is split into 16
+ * linear buckets, so that any recorded value is known to within 1/16th (about 6%), up to about 35
+ * minutes beyond which values are clamped. All the buckets are allocated up front: recording never
+ * allocates.</p>
+ *
+ * <p>This class is not thread-safe.</p>
+ */
+public final class LogLinearHistogram {
+
+    private static final int SUB_BUCKET_BITS = 4;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int MAX_EXPONENT = 20;
+    private static final int BUCKET_COUNT = SUB_BUCKETS * (MAX_EXPONENT - SUB_BUCKET_BITS + 2);
+    /** The largest value that is not clamped. */
+    public static final long MAX_VALUE = (1L << (MAX_EXPONENT + 1)) - 1;
+
+    private final int[] mCounts = new int[BUCKET_COUNT];
+    private long mCount;
+    private long mSum;
+    private long mMin = Long.MAX_VALUE;
+    private long mMax = Long.MIN_VALUE;
+
+    public void record(long value) {
+        if (value < 0) {
+            value = 0;
+        } else if (value > MAX_VALUE) {
+            value = MAX_VALUE;
+        }
+        mCounts[bucketOf(value)]++;
+        mCount++;
+        mSum += value;
+        mMin = Math.min(mMin, value);
+        mMax = Math.max(mMax, value);
+    }
+
+    public long getCount() {
+        return mCount;
+    }
+
+    /**
+     * @return the smallest recorded value, or 0 if none was recorded
+     */
+    public long getMin() {
+        return mCount == 0 ? 0 : mMin;
+    }
+
+    /**
+     * @return the largest recorded value, or 0 if none was recorded
+     */
+    public long getMax() {
+        return mCount == 0 ? 0 : mMax;
+    }
+
+    /**
+     * @return the mean of the recorded values, or 0 if none was recorded
+     */
+    public double getMean() {
+        return mCount == 0 ? 0 : (double) mSum / mCount;
+    }
+
+    /**
+     * @param percentile between 0 and 100
+     * @return the upper bound of the bucket holding the value at the given percentile, or 0 if no
+     * value was recorded
+     */
+    public long getValueAtPercentile(double percentile) {
+        if (mCount == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(Math.min(100, Math.max(0, percentile)) / 100 * mCount));
+        long seen = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            seen += mCounts[i];
+            if (seen >= rank) {
+                return Math.min(mMax, upperBoundOf(i));
+            }
+        }
+        return mMax;
+    }
+
+    /**
+     * Copies the recorded values into another histogram, replacing its own.
+     */
+    public void copyInto(LogLinearHistogram target) {
+        System.arraycopy(mCounts, 0, target.mCounts, 0, BUCKET_COUNT);
+        target.mCount = mCount;
+        target.mSum = mSum;
+        target.mMin = mMin;
+        target.mMax = mMax;
+    }
+
+    public void reset() {
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            mCounts[i] = 0;
+        }
+        mCount = 0;
+        mSum = 0;
+        mMin = Long.MAX_VALUE;
+        mMax = Long.MIN_VALUE;
+    }
+
+    static int bucketOf(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int shift = exponent - SUB_BUCKET_BITS;
+        // the leading bit is implied, the next SUB_BUCKET_BITS select the linear bucket
+        return SUB_BUCKETS * (shift + 1) + (int) ((value >> shift) - SUB_BUCKETS);
+    }
+
+    static long upperBoundOf(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int shift = bucket / SUB_BUCKETS - 1;
+        long base = (long) (SUB_BUCKETS + bucket % SUB_BUCKETS) << shift;
+        return base + (1L << shift) - 1;
+    }
+}
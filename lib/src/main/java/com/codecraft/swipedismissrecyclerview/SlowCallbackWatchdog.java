@@ -0,0 +1,173 @@
+/*
+ * Copyright 2014 François Blavoet
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.codecraft.swipedismissrecyclerview;
+
+import android.content.Context;
+import android.support.v7.widget.RecyclerView;
+
+/**
+ * Times the client callbacks of a swipe listener, and the frames following each dismissal, and
+ * reports the ones over budget. When a swipe stutters, the culprit is usually a slow
+ * {@code canDismiss} or {@code onDismiss}, or the bind and layout triggered by the removal, rather
+ * than the swipe itself.
+ *
+ * <p>Like {@link android.os.StrictMode}, this is meant for debug builds:</p>
+ *
+ * <pre>
+ * if (BuildConfig.DEBUG) {
+ *     touchListener.setCallbackWatchdog(new SlowCallbackWatchdog(context,
+ *             new SlowCallbackWatchdog.OnViolationListener() {
+ *                 &#64;Override
+ *                 public void onViolation(int kind, long durationNanos, int position) {
+ *                     Log.w(TAG, "slow " + kind + " at " + position + ": " + durationNanos / 1000 + "us");
+ *                 }
+ *             }));
+ * }
+ * </pre>
+ *
+ * <p>All methods must be called from the main thread, where violations are reported.</p>
+ */
+public class SlowCallbackWatchdog implements FrameScheduler.Callback {
+
+    /**
+     * The callback interface used to report violations.
+     */
+    public interface OnViolationListener {
+        /**
+         * Called on the main thread when a callback or a frame went over its budget.
+         *
+         * @param kind          what was too slow, one of the {@code KIND_*} values
+         * @param durationNanos how long it took, in ns
+         * @param position      the adapter position involved, or {@link RecyclerView#NO_POSITION}
+         */
+        void onViolation(int kind, long durationNanos, int position);
+    }
+
+    /** {@code DismissCallbacks.canDismiss}, or the dismissability index when there is one. */
+    public static final int KIND_CAN_DISMISS = 0;
+    /** {@code DismissCallbacks.onDismiss}. */
+    public static final int KIND_ON_DISMISS = 1;
+    /** {@code BulkDismissCallbacks.onDismissRanges}, reported with the first dismissed position. */
+    public static final int KIND_ON_DISMISS_RANGES = 2;
+    /** {@code AsyncDismissCallbacks.onDismissRequested}. */
+    public static final int KIND_ON_DISMISS_REQUESTED = 3;
+    /** {@code AsyncDismissCallbacks.onDismissCommitted}. */
+    public static final int KIND_ON_DISMISS_COMMITTED = 4;
+    /** {@code AsyncDismissCallbacks.onDismissRolledBack}. */
+    public static final int KIND_ON_DISMISS_ROLLED_BACK = 5;
+    /**
+     * The frames following a dismissal, which bind and lay out the rows moving into the gap. The
+     * duration runs from the dismissal to the start of the second frame after it, so that the
+     * layout is covered whether it runs in the frame of the dismissal or in the next one.
+     */
+    public static final int KIND_COMMIT_FRAMES = 6;
+
+    private static final long DEFAULT_CALLBACK_BUDGET = 2000000; // 2ms
+
+    // Fixed properties
+    private final OnViolationListener mListener;
+    private final FrameScheduler mFrameScheduler = new FrameScheduler(this);
+    private long mCallbackBudgetNanos = DEFAULT_CALLBACK_BUDGET;
+    private long mFrameBudgetNanos;
+
+    // Transient properties
+    private long mCommitTimeNanos;
+    private int mCommitPosition;
+    private int mFramesSinceCommit;
+
+
+    /**
+     * Creates a watchdog with a budget of 2ms per callback, and of two and a half frames of the
+     * default display for the frames following a dismissal, which is only exceeded when one of
+     * them is dropped.
+     */
+    public SlowCallbackWatchdog(Context context, OnViolationListener listener) {
+        mListener = listener;
+        mFrameBudgetNanos = FrameScheduler.getFrameIntervalNanos(context) * 5 / 2;
+    }
+
+    /**
+     * @param budgetNanos the longest a single callback may take, in ns
+     */
+    public void setCallbackBudget(long budgetNanos) {
+        if (budgetNanos <= 0) {
+            throw new IllegalArgumentException("invalid budget");
+        }
+        mCallbackBudgetNanos = budgetNanos;
+    }
+
+    /**
+     * @param budgetNanos the longest the frames following a dismissal may take, in ns. See
+     *                    {@link #KIND_COMMIT_FRAMES}.
+     */
+    public void setFrameBudget(long budgetNanos) {
+        if (budgetNanos <= 0) {
+            throw new IllegalArgumentException("invalid budget");
+        }
+        mFrameBudgetNanos = budgetNanos;
+    }
+
+    /**
+     * Stops timing the frames of the current dismissal, if any.
+     */
+    public void release() {
+        mFrameScheduler.cancel();
+        mCommitTimeNanos = 0;
+    }
+
+    /**
+     * @return the time to pass to {@link #onCallbackEnd(int, long, int)}
+     */
+    long onCallbackStart() {
+        return System.nanoTime();
+    }
+
+    void onCallbackEnd(int kind, long startNanos, int position) {
+        long duration = System.nanoTime() - startNanos;
+        if (duration > mCallbackBudgetNanos) {
+            mListener.onViolation(kind, duration, position);
+        }
+    }
+
+    /**
+     * Starts timing the frames following a dismissal. The dismissals made while the frames of a
+     * previous one are timed are covered by the same measure.
+     */
+    void onCommitted(int position) {
+        if (mCommitTimeNanos != 0) {
+            return;
+        }
+        mCommitTimeNanos = System.nanoTime();
+        mCommitPosition = position;
+        mFramesSinceCommit = 0;
+        mFrameScheduler.schedule();
+    }
+
+    @Override
+    public void doFrame(long frameTimeNanos) {
+        // a callback posted during the frame of the dismissal may still run in that frame
+        if (frameTimeNanos > mCommitTimeNanos && ++mFramesSinceCommit == 2) {
+            long duration = frameTimeNanos - mCommitTimeNanos;
+            mCommitTimeNanos = 0;
+            if (duration > mFrameBudgetNanos) {
+                mListener.onViolation(KIND_COMMIT_FRAMES, duration, mCommitPosition);
+            }
+            return;
+        }
+        mFrameScheduler.schedule();
+    }
+}
@@ -0,0 +1,113 @@
+/*
+ * Copyright 2014 François Blavoet
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.codecraft.swipedismissrecyclerview;
+
+import java.util.Arrays;
+
+/**
+ * Byte states by stable id, in an open addressing table of primitives so that a lookup never
+ * allocates. State 0 means unknown.
+ *
+ * <p>An id whose state is set back to unknown stays in the table as a tombstone, so that the probe
+ * chains running through its slot are not broken, and its slot is reused if the id is set again.
+ * Tombstones are dropped when the table grows. Id 0, which marks empty slots, is kept aside.</p>
+ *
+ * <p>This class does not depend on Android.</p>
+ */
+final class StableIdStates {
+
+    static final byte UNKNOWN = 0;
+
+    private long[] mIds = new long[16];
+    private byte[] mStates = new byte[16];
+    private int mSize;
+    private boolean mHasZeroId;
+    private byte mZeroIdState;
+
+    byte get(long id) {
+        if (id == 0) {
+            return mHasZeroId ? mZeroIdState : UNKNOWN;
+        }
+        int slot = findSlot(mIds, id);
+        return mIds[slot] == id ? mStates[slot] : UNKNOWN;
+    }
+
+    void put(long id, byte state) {
+        if (id == 0) {
+            mHasZeroId = state != UNKNOWN;
+            mZeroIdState = state;
+            return;
+        }
+        int slot = findSlot(mIds, id);
+        if (mIds[slot] == id) {
+            // unknown entries stay as tombstones, so that the probe chains are not broken
+            mStates[slot] = state;
+            return;
+        }
+        if (state == UNKNOWN) {
+            return;
+        }
+        if ((mSize + 1) * 4 > mIds.length * 3) {
+            rehash(mIds.length * 2);
+            slot = findSlot(mIds, id);
+        }
+        mIds[slot] = id;
+        mStates[slot] = state;
+        mSize++;
+    }
+
+    void clear() {
+        Arrays.fill(mIds, 0);
+        mSize = 0;
+        mHasZeroId = false;
+    }
+
+    /**
+     * @return how many ids the table holds, tombstones included
+     */
+    int size() {
+        return mSize;
+    }
+
+    private void rehash(int capacity) {
+        long[] ids = mIds;
+        byte[] states = mStates;
+        mIds = new long[capacity];
+        mStates = new byte[capacity];
+        mSize = 0;
+        for (int i = 0; i < ids.length; i++) {
+            if (ids[i] != 0 && states[i] != UNKNOWN) {
+                int slot = findSlot(mIds, ids[i]);
+                mIds[slot] = ids[i];
+                mStates[slot] = states[i];
+                mSize++;
+            }
+        }
+    }
+
+    /**
+     * @return the slot holding the given id, or the empty slot where it would go
+     */
+    private static int findSlot(long[] ids, long id) {
+        int mask = ids.length - 1;
+        int slot = (int) (id ^ (id >>> 32)) * 0x9E3779B9 & mask;
+        while (ids[slot] != 0 && ids[slot] != id) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+}
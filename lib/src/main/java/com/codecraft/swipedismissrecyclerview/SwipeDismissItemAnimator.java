@@ -0,0 +1,232 @@
+/*
+ * Copyright 2014 François Blavoet
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.codecraft.swipedismissrecyclerview;
+
+import android.animation.Animator;
+import android.animation.AnimatorListenerAdapter;
+import android.os.SystemClock;
+import android.support.v7.widget.DefaultItemAnimator;
+import android.support.v7.widget.RecyclerView;
+import android.view.View;
+import android.view.ViewPropertyAnimator;
+import android.view.animation.Interpolator;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A {@link DefaultItemAnimator} that accepts the removal of items that are still sliding out.
+ *
+ * <p>With a plain {@link DefaultItemAnimator}, a swiped item is removed once its slide-out is over:
+ * the item is reset to its original position, faded out, and only then are its neighbours moved
+ * into the gap. When this animator is set on the {@link RecyclerView},
+ * {@link SwipeDismissRecyclerViewItemTouchListener} notifies the dismissal as soon as the slide-out
+ * starts. The removal then continues the slide from wherever the item is, while the neighbours
+ * close the gap at the same time, and the item is only reset once it has been detached.</p>
+ *
+ * <p>Removals of items that are not translated are animated by {@link DefaultItemAnimator}. A
+ * slide-out whose removal is not notified by the time it ends, and a holder added or moved by a
+ * later layout, is no longer considered removed.</p>
+ */
+public class SwipeDismissItemAnimator extends DefaultItemAnimator {
+
+    private final Map<RecyclerView.ViewHolder, SlideOut> mSlideOuts = new HashMap<RecyclerView.ViewHolder, SlideOut>();
+    private final List<RecyclerView.ViewHolder> mPendingSlideRemovals = new ArrayList<RecyclerView.ViewHolder>();
+    private final List<RecyclerView.ViewHolder> mSlideRemovalAnimations = new ArrayList<RecyclerView.ViewHolder>();
+    // every holder from its removal until it is detached; slide-outs are in mSlideOuts until then
+    private final Set<RecyclerView.ViewHolder> mRemoving = new HashSet<RecyclerView.ViewHolder>();
+
+    private static class SlideOut {
+        public float translationX;
+        public long endTime;
+        public Interpolator interpolator;
+
+        public SlideOut(float translationX, long endTime, Interpolator interpolator) {
+            this.translationX = translationX;
+            this.endTime = endTime;
+            this.interpolator = interpolator;
+        }
+    }
+
+    /**
+     * Records that the given holder has started sliding out, so that its removal continues towards
+     * the same target and ends at the same time.
+     */
+    void setSlideOut(RecyclerView.ViewHolder holder, float translationX, long duration, Interpolator interpolator) {
+        mSlideOuts.put(holder, new SlideOut(translationX, SystemClock.uptimeMillis() + duration, interpolator));
+    }
+
+    /**
+     * @return whether the given holder is sliding out or animating its removal. Its item is then
+     * gone from the adapter, and its position is that of another item.
+     */
+    boolean isRemoving(RecyclerView.ViewHolder holder) {
+        return mRemoving.contains(holder) || getSlideOut(holder) != null;
+    }
+
+    /**
+     * @return the slide-out of the given holder, unless it ended without its removal being notified,
+     * in which case it is forgotten: the item was kept or rolled back, or the whole adapter changed,
+     * and the holder may already show another item
+     */
+    private SlideOut getSlideOut(RecyclerView.ViewHolder holder) {
+        SlideOut slideOut = mSlideOuts.get(holder);
+        if (slideOut != null && SystemClock.uptimeMillis() > slideOut.endTime
+                && !mPendingSlideRemovals.contains(holder)) {
+            mSlideOuts.remove(holder);
+            return null;
+        }
+        return slideOut;
+    }
+
+    @Override
+    public void onRemoveFinished(RecyclerView.ViewHolder item) {
+        mRemoving.remove(item);
+    }
+
+    @Override
+    public boolean animateRemove(RecyclerView.ViewHolder holder) {
+        mRemoving.add(holder);
+        if (holder.itemView.getTranslationX() == 0 && getSlideOut(holder) == null) {
+            return super.animateRemove(holder);
+        }
+        mPendingSlideRemovals.add(holder);
+        return true;
+    }
+
+    @Override
+    public boolean animateAdd(RecyclerView.ViewHolder holder) {
+        // shown again, whatever it was doing before
+        forget(holder);
+        return super.animateAdd(holder);
+    }
+
+    @Override
+    public boolean animateMove(RecyclerView.ViewHolder holder, int fromX, int fromY, int toX, int toY) {
+        // kept by the adapter
+        forget(holder);
+        return super.animateMove(holder, fromX, fromY, toX, toY);
+    }
+
+    private void forget(RecyclerView.ViewHolder holder) {
+        if (!mPendingSlideRemovals.contains(holder) && !mSlideRemovalAnimations.contains(holder)) {
+            mSlideOuts.remove(holder);
+            mRemoving.remove(holder);
+        }
+    }
+
+    @Override
+    public void runPendingAnimations() {
+        // the slide removals are not pending in DefaultItemAnimator, so it does not delay the moves
+        super.runPendingAnimations();
+        for (RecyclerView.ViewHolder holder : mPendingSlideRemovals) {
+            animateSlideRemovalImpl(holder);
+        }
+        mPendingSlideRemovals.clear();
+    }
+
+    private void animateSlideRemovalImpl(final RecyclerView.ViewHolder holder) {
+        final View view = holder.itemView;
+        SlideOut slideOut = mSlideOuts.remove(holder);
+        float translationX;
+        long duration;
+        Interpolator interpolator;
+        if (slideOut != null) {
+            translationX = slideOut.translationX;
+            duration = Math.max(0, slideOut.endTime - SystemClock.uptimeMillis());
+            interpolator = slideOut.interpolator;
+        } else {
+            translationX = view.getTranslationX() > 0 ? view.getWidth() : -view.getWidth();
+            duration = getRemoveDuration();
+            interpolator = DismissDurations.DEFAULT_INTERPOLATOR;
+        }
+
+        final ViewPropertyAnimator animation = view.animate();
+        mSlideRemovalAnimations.add(holder);
+        animation.translationX(translationX)
+                .alpha(0)
+                .setDuration(duration)
+                .setInterpolator(interpolator)
+                .setListener(new AnimatorListenerAdapter() {
+                    @Override
+                    public void onAnimationStart(Animator animator) {
+                        dispatchRemoveStarting(holder);
+                    }
+
+                    @Override
+                    public void onAnimationEnd(Animator animator) {
+                        animation.setListener(null);
+                        // the holder is detached right after, so this reset is never drawn
+                        view.setTranslationX(0);
+                        view.setAlpha(1);
+                        dispatchRemoveFinished(holder);
+                        mSlideRemovalAnimations.remove(holder);
+                        dispatchFinishedWhenDone();
+                    }
+                }).start();
+    }
+
+    @Override
+    public void endAnimation(RecyclerView.ViewHolder item) {
+        if (mPendingSlideRemovals.remove(item)) {
+            mSlideOuts.remove(item);
+            item.itemView.setTranslationX(0);
+            item.itemView.setAlpha(1);
+            dispatchRemoveFinished(item);
+        }
+        if (mSlideRemovalAnimations.contains(item)) {
+            // ends through the listener set in animateSlideRemovalImpl
+            item.itemView.animate().cancel();
+        }
+        super.endAnimation(item);
+    }
+
+    @Override
+    public void endAnimations() {
+        for (int i = mPendingSlideRemovals.size() - 1; i >= 0; i--) {
+            RecyclerView.ViewHolder item = mPendingSlideRemovals.remove(i);
+            item.itemView.setTranslationX(0);
+            item.itemView.setAlpha(1);
+            dispatchRemoveFinished(item);
+        }
+        for (int i = mSlideRemovalAnimations.size() - 1; i >= 0; i--) {
+            mSlideRemovalAnimations.get(i).itemView.animate().cancel();
+        }
+        mSlideOuts.clear();
+        super.endAnimations();
+        // slide-outs whose removal was never notified
+        mRemoving.clear();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return !mPendingSlideRemovals.isEmpty()
+                || !mSlideRemovalAnimations.isEmpty()
+                || super.isRunning();
+    }
+
+    private void dispatchFinishedWhenDone() {
+        if (!isRunning()) {
+            dispatchAnimationsFinished();
+        }
+    }
+}
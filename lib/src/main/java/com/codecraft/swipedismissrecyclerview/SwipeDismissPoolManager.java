@@ -0,0 +1,228 @@
+/*
+ * Copyright 2014 François Blavoet
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.codecraft.swipedismissrecyclerview;
+
+import android.os.Looper;
+import android.os.MessageQueue;
+import android.os.SystemClock;
+import android.support.v7.widget.RecyclerView;
+import android.util.SparseIntArray;
+
+/**
+ * Keeps the {@link RecyclerView.RecycledViewPool} of a {@link RecyclerView} stocked while the user
+ * dismisses items in quick succession.
+ *
+ * <p>A row is pinned with {@link RecyclerView.ViewHolder#setIsRecyclable(boolean)} for the whole
+ * gesture and then removed, so it never reaches the pool and the row pulled in to fill the gap has
+ * to be created by the adapter in the middle of the removal animation. This manager records the
+ * dismiss rate per view type and, while the main thread is idle, creates view holders ahead of time
+ * (one per idle callback) up to a per view type cap.</p>
+ *
+ * <p>Example usage:</p>
+ *
+ * <pre>
+ * SwipeDismissPoolManager poolManager = new SwipeDismissPoolManager(recyclerView);
+ * poolManager.setMaxPrewarmed(MyAdapter.TYPE_TEXT, 3);
+ * touchListener.setPoolManager(poolManager);
+ * </pre>
+ *
+ * <p>The manager raises the limit of the pool so that it accepts the pre-created holders. It never
+ * lowers it, but the pool does not expose its limits: if the pool was sized larger than its default
+ * 5 holders per type, say so with {@link #setBasePoolSize(int, int)} before the first dismissal.</p>
+ *
+ * <p>All methods must be called from the main thread.</p>
+ */
+public class SwipeDismissPoolManager implements MessageQueue.IdleHandler {
+
+    // RecycledViewPool.DEFAULT_MAX_SCRAP is private
+    private static final int DEFAULT_POOL_SIZE = 5;
+    private static final int DEFAULT_MAX_PREWARMED = 2;
+    private static final long DEFAULT_RATE_WINDOW = 1000;
+    private static final int HISTORY_SIZE = 16;
+
+    // Fixed properties
+    private final RecyclerView mRecyclerView;
+    private final SparseIntArray mMaxPrewarmed = new SparseIntArray();
+    private final SparseIntArray mBasePoolSizes = new SparseIntArray();
+    private final SparseIntArray mPoolLimits = new SparseIntArray();
+    private long mRateWindow = DEFAULT_RATE_WINDOW;
+
+    // Transient properties
+    private final long[] mDismissTimes = new long[HISTORY_SIZE];
+    private final int[] mDismissTypes = new int[HISTORY_SIZE];
+    private int mHistoryHead;
+    private final SparseIntArray mPrewarmed = new SparseIntArray();
+    private boolean mIdleHandlerQueued;
+
+
+    public SwipeDismissPoolManager(RecyclerView recyclerView) {
+        mRecyclerView = recyclerView;
+    }
+
+    /**
+     * Sets how many view holders of the given type may be created ahead of time. The pool of the
+     * {@link RecyclerView} is grown accordingly so that it accepts them, on top of its base size.
+     *
+     * <p>The limit of the pool is only ever raised by this manager: lowering {@code max} leaves it
+     * as it is.</p>
+     *
+     * @param viewType the adapter view type
+     * @param max      the maximum number of pre-created holders, 0 to disable pre-warming for this type
+     * @see #setBasePoolSize(int, int)
+     */
+    public void setMaxPrewarmed(int viewType, int max) {
+        if (max < 0) {
+            throw new IllegalArgumentException("invalid max");
+        }
+        mMaxPrewarmed.put(viewType, max);
+        raisePoolLimit(viewType);
+    }
+
+    /**
+     * Tells the manager how large the pool of the {@link RecyclerView} is for the given type, when it
+     * was sized with {@link RecyclerView.RecycledViewPool#setMaxRecycledViews(int, int)}. The pool
+     * does not expose its limits, so the manager otherwise assumes the default size of 5 holders,
+     * and would set a lower limit than the one chosen. Pre-warmed holders are added on top of it.
+     *
+     * @param viewType the adapter view type
+     * @param size     the size of the pool for this type, without the pre-warmed holders
+     */
+    public void setBasePoolSize(int viewType, int size) {
+        if (size < 0) {
+            throw new IllegalArgumentException("invalid size");
+        }
+        mBasePoolSizes.put(viewType, size);
+        raisePoolLimit(viewType);
+    }
+
+    private void raisePoolLimit(int viewType) {
+        int limit = mBasePoolSizes.get(viewType, DEFAULT_POOL_SIZE) + mMaxPrewarmed.get(viewType);
+        if (limit > mPoolLimits.get(viewType)) {
+            mPoolLimits.put(viewType, limit);
+            mRecyclerView.getRecycledViewPool().setMaxRecycledViews(viewType, limit);
+        }
+    }
+
+    /**
+     * @param rateWindow the time window, in ms, over which the dismiss rate is measured. A burst ends
+     *                   when no dismissal happened during that window.
+     */
+    public void setRateWindow(long rateWindow) {
+        if (rateWindow <= 0) {
+            throw new IllegalArgumentException("invalid window");
+        }
+        mRateWindow = rateWindow;
+    }
+
+    /**
+     * Records a dismissal of an item of the given view type and schedules pre-warming for the next
+     * idle frames.
+     *
+     * @param viewType the view type of the dismissed {@link RecyclerView.ViewHolder}
+     */
+    public void onItemDismissed(int viewType) {
+        long now = SystemClock.uptimeMillis();
+        if (mMaxPrewarmed.indexOfKey(viewType) < 0) {
+            setMaxPrewarmed(viewType, DEFAULT_MAX_PREWARMED);
+        }
+
+        if (countRecentDismissals(now) == 0) {
+            // new burst, whatever we created during the previous one has been consumed or kept
+            mPrewarmed.clear();
+        } else {
+            // the gap left by this dismissal will most likely be filled from the pool
+            mPrewarmed.put(viewType, Math.max(0, mPrewarmed.get(viewType) - 1));
+        }
+
+        mDismissTimes[mHistoryHead] = now;
+        mDismissTypes[mHistoryHead] = viewType;
+        mHistoryHead = (mHistoryHead + 1) % HISTORY_SIZE;
+
+        if (!mIdleHandlerQueued) {
+            mIdleHandlerQueued = true;
+            Looper.myQueue().addIdleHandler(this);
+        }
+    }
+
+    /**
+     * Stops pre-warming. Holders already handed to the pool are left there.
+     */
+    public void release() {
+        if (mIdleHandlerQueued) {
+            Looper.myQueue().removeIdleHandler(this);
+            mIdleHandlerQueued = false;
+        }
+        mPrewarmed.clear();
+    }
+
+    @Override
+    public boolean queueIdle() {
+        RecyclerView.Adapter adapter = mRecyclerView.getAdapter();
+        if (adapter == null) {
+            mIdleHandlerQueued = false;
+            return false;
+        }
+
+        long now = SystemClock.uptimeMillis();
+        for (int i = 0; i < mMaxPrewarmed.size(); i++) {
+            int viewType = mMaxPrewarmed.keyAt(i);
+            int target = Math.min(mMaxPrewarmed.valueAt(i), countRecentDismissals(viewType, now));
+            int prewarmed = mPrewarmed.get(viewType);
+            if (prewarmed < target) {
+                // only one holder per idle callback so that we never hold the looper for long
+                RecyclerView.ViewHolder holder = adapter.createViewHolder(mRecyclerView, viewType);
+                mRecyclerView.getRecycledViewPool().putRecycledView(holder);
+                mPrewarmed.put(viewType, prewarmed + 1);
+                return true;
+            }
+        }
+
+        mIdleHandlerQueued = false;
+        return false;
+    }
+
+    /**
+     * Counts the recent dismissals of all view types.
+     */
+    private int countRecentDismissals(long now) {
+        int count = 0;
+        for (int i = 0; i < HISTORY_SIZE; i++) {
+            if (isRecentDismissal(i, now)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Counts the recent dismissals of the given view type, which may be any value, negative ones
+     * included.
+     */
+    private int countRecentDismissals(int viewType, long now) {
+        int count = 0;
+        for (int i = 0; i < HISTORY_SIZE; i++) {
+            if (isRecentDismissal(i, now) && mDismissTypes[i] == viewType) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private boolean isRecentDismissal(int index, long now) {
+        return mDismissTimes[index] != 0 && now - mDismissTimes[index] <= mRateWindow;
+    }
+}
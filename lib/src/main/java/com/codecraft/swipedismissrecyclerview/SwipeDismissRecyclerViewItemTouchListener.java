@@ -19,13 +19,31 @@ package com.codecraft.swipedismissrecyclerview;
 
 import android.animation.Animator;
 import android.animation.AnimatorListenerAdapter;
+import android.animation.ValueAnimator;
 import android.content.Context;
-import android.graphics.Rect;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.support.v7.widget.GridLayoutManager;
 import android.support.v7.widget.RecyclerView;
 import android.view.MotionEvent;
 import android.view.VelocityTracker;
 import android.view.View;
 import android.view.ViewConfiguration;
+import android.view.ViewTreeObserver;
+import android.view.animation.Interpolator;
+import android.view.animation.LinearInterpolator;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
 
 /**
  * A {@link RecyclerView.OnItemTouchListener} that makes the list items in a {@link android.support.v7.widget.RecyclerView}
@@ -52,6 +70,10 @@ import android.view.ViewConfiguration;
  * recyclerView.setOnScrollListener(touchListener.makeScrollListener());
  * </pre>
  *
+ * <p>Setting a {@link SwipeDismissItemAnimator} on the {@link RecyclerView} lets the removal of the
+ * dismissed item overlap with its slide-out: {@link DismissCallbacks#onDismiss} is then called as
+ * soon as the slide-out starts, and must remove the item from the adapter.</p>
+ *
  * <p>This class Requires API level 12 or later due to use of {@link
  * android.view.ViewPropertyAnimator}.</p>
  *
@@ -81,40 +103,221 @@ public class SwipeDismissRecyclerViewItemTouchListener implements RecyclerView.O
 
     }
 
+    /**
+     * Selects the positions to dismiss in {@link #dismissAll(DismissPredicate, BulkDismissCallbacks)}.
+     */
+    public interface DismissPredicate {
+        /**
+         * Called for every adapter position that {@link DismissCallbacks#canDismiss(int)} accepts.
+         */
+        boolean shouldDismiss(int position);
+    }
+
+    /**
+     * The callback interface used to report a bulk dismissal.
+     */
+    public interface BulkDismissCallbacks {
+        /**
+         * Called once the dismiss wave is over, with all the dismissed positions coalesced into
+         * ranges. The ranges are in descending order, so that removing them one after the other
+         * never shifts the ones left to remove.
+         *
+         * <pre>
+         * for (int i = 0; i &lt; positionStarts.length; i++) {
+         *     mItems.subList(positionStarts[i], positionStarts[i] + itemCounts[i]).clear();
+         *     notifyItemRangeRemoved(positionStarts[i], itemCounts[i]);
+         * }
+         * </pre>
+         *
+         * @param recyclerView   the originating {@link RecyclerView}
+         * @param positionStarts the first position of each range
+         * @param itemCounts     the number of items of each range
+         */
+        void onDismissRanges(RecyclerView recyclerView, int[] positionStarts, int[] itemCounts);
+    }
+
+    /**
+     * The callback interface used instead of {@link DismissCallbacks#onDismiss} once
+     * {@link #setAsyncDismiss(Executor, AsyncDismissCallbacks)} is called, for dismissals that need
+     * slow work, such as a database delete or a network call, before the item can be removed.
+     */
+    public interface AsyncDismissCallbacks {
+        /**
+         * Called on the main thread when the user has dismissed an item. The row slides out and stays
+         * hidden while the returned work runs on the executor.
+         *
+         * @param recyclerView the originating {@link RecyclerView}
+         * @param holder       the holder of the item being dismissed
+         * @return the work to run, which fails by throwing
+         */
+        Callable<?> onDismissRequested(RecyclerView recyclerView, RecyclerView.ViewHolder holder);
+
+        /**
+         * Called on the main thread once the work succeeded and the slide-out is over. The item must
+         * be removed from the adapter.
+         */
+        void onDismissCommitted(RecyclerView recyclerView, RecyclerView.ViewHolder holder);
+
+        /**
+         * Called on the main thread once the work failed and the slide-out is over. The row is animated
+         * back in place; the adapter must not be changed.
+         *
+         * @param error what the work threw
+         */
+        void onDismissRolledBack(RecyclerView recyclerView, RecyclerView.ViewHolder holder, Throwable error);
+    }
+
+    /** No row is touched or animated. */
+    public static final int PHASE_IDLE = 0;
+    /** A dismissable row is touched but not swiped yet. */
+    public static final int PHASE_TOUCHING = 1;
+    /** A row is being swiped. */
+    public static final int PHASE_SWIPING = 2;
+    /** Rows are sliding out or back in place. */
+    public static final int PHASE_ANIMATING = 3;
+    /** Dismissed rows wait for their asynchronous work. */
+    public static final int PHASE_WAITING = 4;
+
+    // How long the velocity of an interrupted animation keeps adding to the gesture's, in ms
+    private static final long INHERITED_VELOCITY_WINDOW = 100;
+    // Delay between the slide-outs of two consecutive rows of a bulk dismissal, in ms
+    private static final long WAVE_STAGGER = 30;
+
+    private static final Comparator<RecyclerView.ViewHolder> POSITION_ORDER = new Comparator<RecyclerView.ViewHolder>() {
+        @Override
+        public int compare(RecyclerView.ViewHolder lhs, RecyclerView.ViewHolder rhs) {
+            return lhs.getPosition() - rhs.getPosition();
+        }
+    };
+
     // Cached ViewConfiguration and system-wide constant values
-    private int mSlop;
-    private int mMinFlingVelocity;
-    private int mMaxFlingVelocity;
     private long mAnimationTime;
+    private boolean mVelocityDrivenDismiss;
+    private long mMaxDismissDuration;
+    private boolean mFrameAlignedMoves;
+    private boolean mResampleMoves;
+    private boolean mCatchFlings;
+    private boolean mCaughtFling;
 
 
     // Fixed properties
-    private final DismissCallbacks mCallbacks;
+    private DismissCallbacks mCallbacks;
     private final RecyclerView mRecyclerView;
+    private final SwipeGestureCore mGesture;
+    private SwipeDismissPoolManager mPoolManager;
+    private ChildHitTester mChildHitTester;
+    private LinearChildHitTester mLinearHitTester;
+    private GridChildHitTester mGridHitTester;
+    private GestureTraceRecorder mTraceRecorder;
+    private AdaptiveQualityController mQualityController;
+    private SwipeStatistics mStatistics;
+    private SlowCallbackWatchdog mWatchdog;
+    private DismissedHolderCache mHolderCache;
+    private final int[] mLocation = new int[2];
 
     // Transient properties
     private int mPointerId;
-    private float mDownX;
-    private float mDownY;
-    private boolean mSwiping;
-    private int mSwipingSlop;
     private VelocityTracker mVelocityTracker;
     private int mDownPosition;
     private RecyclerView.ViewHolder mDownHolder;
     private View mDownView;
     private int mDownViewWidth = 1; // 1 and not 0 to prevent dividing by zero
     private boolean mPaused;
+    private float mInheritedVelocityX;
+    private long mInheritedVelocityTime;
+    private long mLastReleaseTime;
+    private final List<SwipeAnimation> mRunningAnimations = new ArrayList<SwipeAnimation>();
+    private final List<DismissWave> mDismissWaves = new ArrayList<DismissWave>();
+    private final List<BulkRequest> mBulkRequests = new ArrayList<BulkRequest>();
+    // The positions of the bulk requests and of the waves, kept in step with the adapter
+    private final List<DismissPositions> mTrackedPositions = new ArrayList<DismissPositions>();
+    private int mAdapterChanges;
+    private RecyclerView.Adapter mObservedAdapter;
+    private ViewTreeObserver mPreDrawObserver;
+    private BulkDismissCallbacks mScrubCallbacks;
+    private final List<RecyclerView.ViewHolder> mScrubHolders = new ArrayList<RecyclerView.ViewHolder>();
+    private View mScrubView;
+    private FrameScheduler mMoveScheduler;
+    private SwipeSnapshotDecoration mSnapshots;
+    private FrameScheduler mSnapshotInvalidator;
+    private TouchPredictor mTouchPredictor;
+    private DismissabilityIndex mDismissabilityIndex;
+    private Executor mAsyncExecutor;
+    private AsyncDismissCallbacks mAsyncCallbacks;
+    private final Handler mMainHandler = new Handler(Looper.getMainLooper());
+    private final List<AsyncDismiss> mAsyncDismisses = new ArrayList<AsyncDismiss>();
+
+    private final View.OnAttachStateChangeListener mAttachStateListener = new View.OnAttachStateChangeListener() {
+        @Override
+        public void onViewAttachedToWindow(View v) {
+        }
+
+        @Override
+        public void onViewDetachedFromWindow(View v) {
+            cancelAnimations();
+        }
+    };
+
+    private final RecyclerView.AdapterDataObserver mWaveAdapterObserver = new RecyclerView.AdapterDataObserver() {
+        @Override
+        public void onChanged() {
+            // nothing to rebase the positions on
+            abandonDismissWaves();
+        }
+
+        @Override
+        public void onItemRangeInserted(int positionStart, int itemCount) {
+            mAdapterChanges++;
+            for (int i = 0; i < mTrackedPositions.size(); i++) {
+                mTrackedPositions.get(i).onItemRangeInserted(positionStart, itemCount);
+            }
+        }
+
+        @Override
+        public void onItemRangeRemoved(int positionStart, int itemCount) {
+            mAdapterChanges++;
+            for (int i = 0; i < mTrackedPositions.size(); i++) {
+                mTrackedPositions.get(i).onItemRangeRemoved(positionStart, itemCount);
+            }
+        }
+
+        @Override
+        public void onItemRangeMoved(int fromPosition, int toPosition, int itemCount) {
+            mAdapterChanges++;
+            for (int i = 0; i < mTrackedPositions.size(); i++) {
+                mTrackedPositions.get(i).onItemRangeMoved(fromPosition, toPosition, itemCount);
+            }
+        }
+    };
+
+    private final ViewTreeObserver.OnPreDrawListener mWavePreDrawListener = new ViewTreeObserver.OnPreDrawListener() {
+        @Override
+        public boolean onPreDraw() {
+            // the layout pass has brought the positions of the children up to date
+            for (int i = 0; i < mDismissWaves.size(); i++) {
+                mDismissWaves.get(i).resolvePositions();
+            }
+            int changes = mAdapterChanges;
+            // a wave reported right away changes the adapter: the next requests wait for the layout
+            while (!mBulkRequests.isEmpty() && changes == mAdapterChanges) {
+                startDismissWave(mBulkRequests.remove(0));
+            }
+            updateWaveObservers();
+            return true;
+        }
+    };
 
 
     public SwipeDismissRecyclerViewItemTouchListener(RecyclerView recyclerView, Context context, DismissCallbacks callbacks) {
         ViewConfiguration vc = ViewConfiguration.get(context);
         mRecyclerView = recyclerView;
         mCallbacks = callbacks;
-        mSlop = vc.getScaledTouchSlop();
-        mMinFlingVelocity = vc.getScaledMinimumFlingVelocity() * 16;
-        mMaxFlingVelocity = vc.getScaledMaximumFlingVelocity();
+        mGesture = new SwipeGestureCore(vc.getScaledTouchSlop(),
+                vc.getScaledMinimumFlingVelocity() * 16, vc.getScaledMaximumFlingVelocity());
         mAnimationTime = context.getResources().getInteger(
                 android.R.integer.config_shortAnimTime);
+        mMaxDismissDuration = mAnimationTime;
+        recyclerView.addOnAttachStateChangeListener(mAttachStateListener);
     }
 
 
@@ -127,8 +330,557 @@ public class SwipeDismissRecyclerViewItemTouchListener implements RecyclerView.O
         mPaused = !enabled;
     }
 
+    /**
+     * Makes the slide-out of a dismissed item continue at the velocity the user released it with,
+     * decelerating until it is off screen, rather than run for a fixed duration. Fast flings then
+     * clear the item in a fraction of the default time.
+     *
+     * @param enabled     Whether or not the slide-out follows the release velocity.
+     * @param maxDuration The duration used for slow releases, in ms. Use the default animation
+     *                    time ({@code android.R.integer.config_shortAnimTime}) to never be slower
+     *                    than with a fixed duration.
+     */
+    public void setVelocityDrivenDismiss(boolean enabled, long maxDuration) {
+        if (maxDuration <= 0) {
+            throw new IllegalArgumentException("invalid duration");
+        }
+        mVelocityDrivenDismiss = enabled;
+        mMaxDismissDuration = maxDuration;
+    }
+
+    /**
+     * Sets an index to look up whether a touched item can be dismissed, instead of calling
+     * {@link DismissCallbacks#canDismiss(int)} on every touch. The callback is still called for the
+     * items the index does not know yet.
+     *
+     * @param index the index, or null to always call the callback
+     */
+    public void setDismissabilityIndex(DismissabilityIndex index) {
+        mDismissabilityIndex = index;
+    }
+
+    /**
+     * Stops the list when it is touched while settling after a fling, before looking for the touched
+     * row, so that the row can be swiped right away. Otherwise the row found would keep moving under
+     * the finger, and the {@link RecyclerView} catching the fling itself pauses swiping until the
+     * next gesture. When the touch also stops a row that was still animating, that row is not
+     * clicked: unless the touch became a swipe, its up event is intercepted and the row gets a
+     * cancel instead. The time taken to catch the fling is recorded in
+     * {@link SwipeStatistics#getFlingCatch()}.
+     *
+     * @param enabled Whether or not a touch stops a settling fling.
+     */
+    public void setCatchFlings(boolean enabled) {
+        mCatchFlings = enabled;
+    }
+
+    /**
+     * Draws the swiped row where the finger is predicted to be once the frame is displayed, rather
+     * than where it was at the last touch sample, which hides a frame or two of touch latency during
+     * fast swipes. The prediction only moves the row: dismiss decisions use the measured positions,
+     * and the animations started on release continue from wherever the row is drawn.
+     *
+     * @param predictionTime how far ahead to predict, in ms, typically one to two frames; 0 to disable
+     * @param maxOffset      the largest distance, in px, between the predicted and measured positions
+     */
+    public void setTouchPrediction(long predictionTime, float maxOffset) {
+        mTouchPredictor = predictionTime > 0 ? new TouchPredictor(predictionTime, maxOffset) : null;
+    }
+
+    /**
+     * Makes the swiped row follow the finger once per frame rather than on every move event. Touch
+     * panels sampling faster than the display otherwise write the translation and alpha of the row
+     * several times per frame, and all but the last write are never drawn.
+     *
+     * @param enabled  Whether or not moves are applied once per frame.
+     * @param resample Whether or not to place the row where the finger is estimated to be at the time
+     *                 of the frame, from the last two move events, rather than at the last one.
+     */
+    public void setFrameAlignedMoves(boolean enabled, boolean resample) {
+        mFrameAlignedMoves = enabled;
+        mResampleMoves = resample;
+        if (enabled && mMoveScheduler == null) {
+            mMoveScheduler = new FrameScheduler(new FrameScheduler.Callback() {
+                @Override
+                public void doFrame(long frameTimeNanos) {
+                    if (mDownView == null || !mGesture.isSwiping()) {
+                        return;
+                    }
+                    // event times and frame times share the monotonic clock
+                    long frameTime = frameTimeNanos / 1000000;
+                    if (mTouchPredictor != null) {
+                        // the prediction already accounts for the time since the last sample
+                        applySwipe(mGesture.getTranslationX() + getPredictionOffset(frameTime),
+                                mGesture.getAlpha());
+                    } else if (mResampleMoves) {
+                        applySwipe(mGesture.getTranslationXAt(frameTime), mGesture.getAlphaAt(frameTime));
+                    } else {
+                        applySwipe(mGesture.getTranslationX(), mGesture.getAlpha());
+                    }
+                }
+            });
+        } else if (!enabled && mMoveScheduler != null) {
+            mMoveScheduler.cancel();
+        }
+    }
+
+    /**
+     * Draws each swiped row from a bitmap captured when the swipe starts, while the real row is
+     * hidden, until it is dismissed or back in place. Rows with images, nested layouts or shadows
+     * are then not redrawn on every move and during the fade. The snapshot does not follow changes
+     * made to the row during the swipe. Rows showing a {@code TextureView}, a {@code SurfaceView} or a
+     * hardware bitmap, which a software snapshot would leave blank, are swiped as usual.
+     *
+     * @param enabled Whether or not swiped rows are drawn from a snapshot.
+     */
+    public void setSnapshotRendering(boolean enabled) {
+        if (enabled && mSnapshots == null) {
+            mSnapshots = new SwipeSnapshotDecoration(mRecyclerView);
+            mRecyclerView.addItemDecoration(mSnapshots);
+            mSnapshotInvalidator = new FrameScheduler(new FrameScheduler.Callback() {
+                @Override
+                public void doFrame(long frameTimeNanos) {
+                    // the animations move the hidden rows without invalidating the RecyclerView
+                    for (int i = 0; i < mRunningAnimations.size(); i++) {
+                        View view = mRunningAnimations.get(i).mHolder.itemView;
+                        if (mSnapshots != null && mSnapshots.isCaptured(view)) {
+                            mRecyclerView.invalidate();
+                            mSnapshotInvalidator.schedule();
+                            return;
+                        }
+                    }
+                }
+            });
+        } else if (!enabled && mSnapshots != null) {
+            mSnapshotInvalidator.cancel();
+            mSnapshotInvalidator = null;
+            mSnapshots.releaseAll();
+            mRecyclerView.removeItemDecoration(mSnapshots);
+            mSnapshots = null;
+        }
+    }
+
+    /**
+     * Makes dismissals asynchronous: the dismissed row slides out and stays hidden while the work
+     * returned by {@link AsyncDismissCallbacks#onDismissRequested} runs on the given executor. Once
+     * both are over, the removal is committed, or the row is animated back if the work failed.
+     * {@link DismissCallbacks#onDismiss} is no longer called.
+     *
+     * @param executor  the executor to run the work on, or null to go back to synchronous dismissals
+     * @param callbacks the callbacks to request, commit and roll back dismissals
+     */
+    public void setAsyncDismiss(Executor executor, AsyncDismissCallbacks callbacks) {
+        if ((executor == null) != (callbacks == null)) {
+            throw new IllegalArgumentException("executor and callbacks must be both set or both null");
+        }
+        mAsyncExecutor = executor;
+        mAsyncCallbacks = callbacks;
+    }
+
+    /**
+     * Lets a single gesture dismiss a whole stretch of rows. Once a swipe is under way, moving the
+     * finger up or down also marks the rows it crosses, which then follow the swiped row. On
+     * release, the marked rows and the swiped one are all dismissed, sliding out together, or all
+     * put back. A gesture that marked other rows reports its dismissals at once to the given
+     * callbacks rather than through {@link DismissCallbacks#onDismiss} or the asynchronous callbacks.
+     *
+     * @param callbacks the callback to report the dismissed positions to, or null to disable
+     *                  scrubbing
+     */
+    public void setScrubDismiss(BulkDismissCallbacks callbacks) {
+        mScrubCallbacks = callbacks;
+    }
+
+    /**
+     * Sets a {@link SwipeDismissPoolManager} to be told about every dismissal, so that it can refill
+     * the pool of the {@link RecyclerView} during bursts of dismisses.
+     *
+     * @param poolManager the pool manager, or null to remove it
+     */
+    public void setPoolManager(SwipeDismissPoolManager poolManager) {
+        if (mPoolManager != null && mPoolManager != poolManager) {
+            mPoolManager.release();
+        }
+        mPoolManager = poolManager;
+    }
+
+
+
+    /**
+     * Sets a cache to keep the dismissed view holders in, still bound, in case their item is put
+     * back.
+     *
+     * @param holderCache the cache, or null to let dismissed holders go back to the pool
+     */
+    public void setDismissedHolderCache(DismissedHolderCache holderCache) {
+        if (mHolderCache != null && mHolderCache != holderCache) {
+            mHolderCache.release();
+        }
+        mHolderCache = holderCache;
+    }
+
+    /**
+     * Sets the strategy used to find the touched child. By default, a {@link GridChildHitTester} is
+     * used for {@link GridLayoutManager}s and a {@link LinearChildHitTester} for anything else,
+     * following the current layout manager.
+     *
+     * @param childHitTester the hit test strategy, or null to use the default one
+     */
+    public void setChildHitTester(ChildHitTester childHitTester) {
+        mChildHitTester = childHitTester;
+    }
+
+    private ChildHitTester getChildHitTester() {
+        if (mChildHitTester != null) {
+            return mChildHitTester;
+        }
+        // the layout manager may be replaced at any time
+        if (mRecyclerView.getLayoutManager() instanceof GridLayoutManager) {
+            if (mGridHitTester == null) {
+                mGridHitTester = new GridChildHitTester();
+            }
+            return mGridHitTester;
+        }
+        if (mLinearHitTester == null) {
+            mLinearHitTester = new LinearChildHitTester();
+        }
+        return mLinearHitTester;
+    }
+
+    /**
+     * Sets a recorder for every {@link MotionEvent} this listener receives.
+     *
+     * @param recorder the recorder, or null to stop recording
+     */
+    public void setGestureTraceRecorder(GestureTraceRecorder recorder) {
+        mTraceRecorder = recorder;
+    }
+
+    /**
+     * Sets where to count the gestures handled by this listener.
+     *
+     * @param statistics the statistics to update, or null to stop counting
+     */
+    public void setStatistics(SwipeStatistics statistics) {
+        mStatistics = statistics;
+        mGesture.setStatistics(statistics);
+    }
+
+    /**
+     * Sets a controller that lowers the effects of the swipe and of the slide-out when frames are
+     * dropped.
+     *
+     * @param qualityController the controller, or null to always use all effects
+     */
+    public void setQualityController(AdaptiveQualityController qualityController) {
+        if (mQualityController != null && mQualityController != qualityController) {
+            mQualityController.release();
+        }
+        mQualityController = qualityController;
+    }
+
+    /**
+     * Sets a watchdog to time the callbacks of this listener, and the frames following each
+     * dismissal.
+     *
+     * @param watchdog the watchdog, or null to stop timing
+     */
+    public void setCallbackWatchdog(SlowCallbackWatchdog watchdog) {
+        if (mWatchdog != null && mWatchdog != watchdog) {
+            mWatchdog.release();
+        }
+        mWatchdog = watchdog;
+    }
+
+    /**
+     * Detaches this listener from its {@link RecyclerView} for good, typically from
+     * {@code Fragment.onDestroyView()}. Running animations are cancelled without dismissing their
+     * item, rows are restored and made recyclable again, the pool manager, the holder cache, the
+     * quality controller and the watchdog are released, and all the callbacks, along with the
+     * executor of asynchronous dismissals, are dropped so that they are never called again. Bulk
+     * dismissals requested afterwards are ignored.
+     */
+    public void release() {
+        cancelAnimations();
+        mRecyclerView.removeOnAttachStateChangeListener(mAttachStateListener);
+        mRecyclerView.removeOnItemTouchListener(this);
+        setPoolManager(null);
+        setDismissedHolderCache(null);
+        setQualityController(null);
+        setCallbackWatchdog(null);
+        setSnapshotRendering(false);
+        if (mChildHitTester instanceof GridChildHitTester) {
+            ((GridChildHitTester) mChildHitTester).release();
+        }
+        if (mGridHitTester != null) {
+            mGridHitTester.release();
+        }
+        mChildHitTester = null;
+        mGridHitTester = null;
+        mLinearHitTester = null;
+        mTraceRecorder = null;
+        mCallbacks = null;
+        mAsyncCallbacks = null;
+        mAsyncExecutor = null;
+        mScrubCallbacks = null;
+    }
+
+    /**
+     * Dismisses every item matching the given predicate. See {@link #dismissPositions(int[],
+     * BulkDismissCallbacks)}.
+     *
+     * @param predicate the items to dismiss
+     * @param callbacks the callback to report the dismissed positions to
+     */
+    public void dismissAll(DismissPredicate predicate, BulkDismissCallbacks callbacks) {
+        if (mCallbacks == null) {
+            // released
+            return;
+        }
+        int itemCount = mRecyclerView.getAdapter().getItemCount();
+        int[] positions = new int[itemCount];
+        int count = 0;
+        for (int position = 0; position < itemCount; position++) {
+            if (canDismiss(position) && predicate.shouldDismiss(position)) {
+                positions[count++] = position;
+            }
+        }
+        queueDismissWave(positions, count, callbacks);
+    }
+
+    /**
+     * Dismisses the items at the given positions, as if they had all been swiped away.
+     *
+     * <p>The visible items slide out one after the other in a single wave, the others are removed
+     * with them at the end of the wave, and all of them are then reported at once to
+     * {@link BulkDismissCallbacks#onDismissRanges}. Positions that
+     * {@link DismissCallbacks#canDismiss(int)} refuses, and items that are being swiped or animated
+     * by this listener, are left out.</p>
+     *
+     * <p>The wave starts at the next frame, once the layout has caught up with the adapter. Until it
+     * is reported, the positions follow the insertions, removals and moves of the adapter, removed
+     * items being left out; a {@link RecyclerView.Adapter#notifyDataSetChanged()} abandons it and puts
+     * its rows back. A new bulk dismissal does not interrupt a running wave: it runs alongside it,
+     * leaving out the items the wave already dismisses.</p>
+     *
+     * @param positions the adapter positions to dismiss, in any order
+     * @param callbacks the callback to report the dismissed positions to
+     */
+    public void dismissPositions(int[] positions, BulkDismissCallbacks callbacks) {
+        if (mCallbacks == null) {
+            // released
+            return;
+        }
+        int itemCount = mRecyclerView.getAdapter().getItemCount();
+        int[] sorted = positions.clone();
+        Arrays.sort(sorted);
+        int count = 0;
+        for (int i = 0; i < sorted.length; i++) {
+            int position = sorted[i];
+            if (position >= 0 && position < itemCount && (count == 0 || sorted[count - 1] != position)
+                    && canDismiss(position)) {
+                sorted[count++] = position;
+            }
+        }
+        queueDismissWave(sorted, count, callbacks);
+    }
+
+    /**
+     * @param positions the positions to dismiss, sorted and unique, in the first {@code count} slots
+     */
+    private void queueDismissWave(int[] positions, int count, BulkDismissCallbacks callbacks) {
+        if (count == 0) {
+            return;
+        }
+        BulkRequest request = new BulkRequest(new DismissPositions(positions, count), callbacks);
+        mBulkRequests.add(request);
+        mTrackedPositions.add(request.mPositions);
+        updateWaveObservers();
+    }
+
+    /**
+     * Starts the wave of a queued request. Must be called when the positions of the children are up
+     * to date.
+     */
+    private void startDismissWave(BulkRequest request) {
+        DismissPositions positions = request.mPositions;
+        // the items of the running waves are already on their way
+        for (int i = 0; i < mDismissWaves.size(); i++) {
+            DismissPositions dismissed = mDismissWaves.get(i).mPositions;
+            for (int j = 0; j < dismissed.size(); j++) {
+                positions.remove(dismissed.get(j));
+            }
+        }
+        // rows under a gesture or an animation of their own stay where they are
+        List<RecyclerView.ViewHolder> visible = new ArrayList<RecyclerView.ViewHolder>();
+        for (int i = 0; i < mRecyclerView.getChildCount(); i++) {
+            View child = mRecyclerView.getChildAt(i);
+            RecyclerView.ViewHolder holder = mRecyclerView.getChildViewHolder(child);
+            int position = holder.getPosition();
+            if (!positions.contains(position)) {
+                continue;
+            }
+            if (child == mDownView || mScrubHolders.contains(holder) || findRunningAnimation(child) != null
+                    || isInDismissWave(holder)) {
+                positions.remove(position);
+            } else {
+                visible.add(holder);
+            }
+        }
+        if (positions.size() == 0 || visible.isEmpty()) {
+            mTrackedPositions.remove(positions);
+            if (positions.size() > 0) {
+                reportDismissRanges(positions, request.mCallbacks);
+            }
+            return;
+        }
 
+        // top to bottom, whatever the order of the children
+        Collections.sort(visible, POSITION_ORDER);
+        DismissWave wave = new DismissWave(visible, positions, request.mCallbacks, true, 1);
+        mDismissWaves.add(wave);
+        wave.start();
+    }
 
+    private boolean isInDismissWave(RecyclerView.ViewHolder holder) {
+        for (int i = 0; i < mDismissWaves.size(); i++) {
+            if (mDismissWaves.get(i).mHolders.contains(holder)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Follows the adapter while positions are tracked, and the frames while requests wait to start
+     * or waves to learn their positions.
+     */
+    private void updateWaveObservers() {
+        RecyclerView.Adapter adapter = mDismissWaves.isEmpty() && mBulkRequests.isEmpty()
+                ? null : mRecyclerView.getAdapter();
+        if (adapter != mObservedAdapter) {
+            if (mObservedAdapter != null) {
+                mObservedAdapter.unregisterAdapterDataObserver(mWaveAdapterObserver);
+            }
+            mObservedAdapter = adapter;
+            if (adapter != null) {
+                adapter.registerAdapterDataObserver(mWaveAdapterObserver);
+            }
+        }
+
+        boolean resolving = !mBulkRequests.isEmpty();
+        for (int i = 0; i < mDismissWaves.size(); i++) {
+            resolving |= mDismissWaves.get(i).mPositions == null;
+        }
+        // the observer of a detached view is merged into the window's on attach
+        ViewTreeObserver observer = resolving ? mRecyclerView.getViewTreeObserver() : null;
+        if (observer != mPreDrawObserver) {
+            if (mPreDrawObserver != null && mPreDrawObserver.isAlive()) {
+                mPreDrawObserver.removeOnPreDrawListener(mWavePreDrawListener);
+            }
+            mPreDrawObserver = observer;
+            if (observer != null) {
+                observer.addOnPreDrawListener(mWavePreDrawListener);
+            }
+        }
+        if (resolving) {
+            // makes sure there is a next frame
+            mRecyclerView.invalidate();
+        }
+    }
+
+    /**
+     * Drops the queued bulk dismissals and cancels the running waves, putting their rows back.
+     */
+    private void abandonDismissWaves() {
+        mBulkRequests.clear();
+        mTrackedPositions.clear();
+        for (int i = mDismissWaves.size() - 1; i >= 0; i--) {
+            DismissWave wave = mDismissWaves.remove(i);
+            wave.mAnimator.cancel();
+            for (RecyclerView.ViewHolder holder : wave.mHolders) {
+                restoreRow(holder);
+            }
+        }
+        updateWaveObservers();
+    }
+
+    /**
+     * Coalesces the positions into ranges and reports them, last range first.
+     */
+    private void reportDismissRanges(DismissPositions positions, BulkDismissCallbacks callbacks) {
+        int count = positions.size();
+        int rangeCount = 1;
+        for (int i = 1; i < count; i++) {
+            if (positions.get(i) != positions.get(i - 1) + 1) {
+                rangeCount++;
+            }
+        }
+        int[] starts = new int[rangeCount];
+        int[] counts = new int[rangeCount];
+        int range = rangeCount - 1;
+        starts[range] = positions.first();
+        for (int i = 1; i < count; i++) {
+            counts[range]++;
+            if (positions.get(i) != positions.get(i - 1) + 1) {
+                range--;
+                starts[range] = positions.get(i);
+            }
+        }
+        counts[range]++;
+        int first = positions.first();
+        long start = startCallback();
+        callbacks.onDismissRanges(mRecyclerView, starts, counts);
+        endCallback(SlowCallbackWatchdog.KIND_ON_DISMISS_RANGES, start, first);
+        onCommitted(first);
+    }
+
+    /**
+     * @return what this listener is doing, one of the {@code PHASE_*} values, the gesture first
+     */
+    public int getSwipePhase() {
+        if (mVelocityTracker != null) {
+            return mGesture.isSwiping() ? PHASE_SWIPING : PHASE_TOUCHING;
+        }
+        if (!mRunningAnimations.isEmpty() || !mDismissWaves.isEmpty()) {
+            return PHASE_ANIMATING;
+        }
+        return mAsyncDismisses.isEmpty() ? PHASE_IDLE : PHASE_WAITING;
+    }
+
+    /**
+     * @return the time of the up event that ended the last swipe, in the
+     * {@link SystemClock#uptimeMillis()} time base, or 0 if no swipe ended yet
+     */
+    public long getLastReleaseTime() {
+        return mLastReleaseTime;
+    }
+
+    /**
+     * @return the number of view holders this listener keeps from being recycled
+     */
+    public int getPinnedCount() {
+        int count = mVelocityTracker != null ? 1 + mScrubHolders.size() : 0;
+        count += mRunningAnimations.size();
+        for (int i = 0; i < mDismissWaves.size(); i++) {
+            count += mDismissWaves.get(i).mHolders.size();
+        }
+        // the rows still sliding out are already counted with the animations
+        for (int i = 0; i < mAsyncDismisses.size(); i++) {
+            if (mAsyncDismisses.get(i).mSlidOut) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * @return the number of slide-out and settle animations running, each bulk dismissal counting as
+     * one
+     */
+    public int getRunningAnimationCount() {
+        return mRunningAnimations.size() + mDismissWaves.size();
+    }
 
     public RecyclerView.OnScrollListener makeScrollListener() {
 
@@ -140,17 +892,34 @@ public class SwipeDismissRecyclerViewItemTouchListener implements RecyclerView.O
 
             @Override
             public void onScrolled(RecyclerView recyclerView, int dx, int dy) {
+                // the children moved without a layout pass
+                ChildHitTester childHitTester = getChildHitTester();
+                if (childHitTester instanceof GridChildHitTester) {
+                    ((GridChildHitTester) childHitTester).invalidate();
+                }
             }
         };
     }
 
     @Override
     public boolean onInterceptTouchEvent(RecyclerView recyclerView, MotionEvent motionEvent) {
-        return handleTouch(motionEvent);
+        if (mTraceRecorder != null) {
+            mTraceRecorder.record(motionEvent);
+        }
+        boolean intercept = handleTouch(motionEvent);
+        if (mCaughtFling && motionEvent.getActionMasked() == MotionEvent.ACTION_UP) {
+            // the touch that stopped the list and a running row is not a tap on that row
+            mCaughtFling = false;
+            return true;
+        }
+        return intercept;
     }
 
     @Override
     public void onTouchEvent(RecyclerView recyclerView, MotionEvent motionEvent) {
+        if (mTraceRecorder != null) {
+            mTraceRecorder.record(motionEvent);
+        }
         handleTouch(motionEvent);
     }
 
@@ -158,66 +927,80 @@ public class SwipeDismissRecyclerViewItemTouchListener implements RecyclerView.O
 
         switch (motionEvent.getActionMasked()) {
             case MotionEvent.ACTION_DOWN: {
-                if (mPaused) {
+                mCaughtFling = false;
+                if (mPaused || mCallbacks == null) {
                     return false;
                 }
 
+                boolean catchFling = mCatchFlings
+                        && mRecyclerView.getScrollState() == RecyclerView.SCROLL_STATE_SETTLING;
+                if (catchFling) {
+                    // the rows stop where they are, and the scroll listener sees the list idle
+                    mRecyclerView.stopScroll();
+                }
+
                 // Find the child view that was touched (perform a hit test)
-                Rect rect = new Rect();
-                int childCount = mRecyclerView.getChildCount();
-                int[] coords = new int[2];
-                mRecyclerView.getLocationOnScreen(coords);
-                int x = (int) motionEvent.getRawX() - coords[0];
-                int y = (int) motionEvent.getRawY() - coords[1];
-                View child;
-                for (int i = 0; i < childCount; i++) {
-                    child = mRecyclerView.getChildAt(i);
-                    child.getHitRect(rect);
-                    if (rect.contains(x, y)) {
-                        mDownView = child;
-                        break;
-                    }
+                mRecyclerView.getLocationOnScreen(mLocation);
+                mDownView = getChildHitTester().findChildUnder(mRecyclerView,
+                        motionEvent.getRawX() - mLocation[0], motionEvent.getRawY() - mLocation[1]);
+                if (catchFling && mStatistics != null) {
+                    mStatistics.onFlingCaught(SystemClock.uptimeMillis() - motionEvent.getEventTime());
                 }
 
                 if (mDownView != null) {
                     mPointerId = motionEvent.getPointerId(motionEvent.getActionIndex()); // TODO check on on Down, reinit on on UP
 
-                    mDownX = motionEvent.getRawX();
-                    mDownY = motionEvent.getRawY();
                     mDownPosition = mRecyclerView.getChildPosition(mDownView);
                     mDownViewWidth = mDownView.getWidth();
                     mDownHolder = mRecyclerView.getChildViewHolder(mDownView);
-                    mDownHolder.setIsRecyclable(false);
-                    if (mCallbacks.canDismiss(mDownPosition)) {
+                    boolean inWave = isInDismissWave(mDownHolder);
+                    // a row waiting for its asynchronous work is already gone for the user
+                    if (!inWave && findAsyncDismiss(mDownHolder) == null && canDismiss(mDownPosition)) {
+                        mGesture.onDown(motionEvent.getRawX(), motionEvent.getRawY(),
+                                motionEvent.getEventTime(), mDownViewWidth);
+                        if (mTouchPredictor != null) {
+                            mTouchPredictor.reset();
+                            mTouchPredictor.addSample(motionEvent.getRawX(), motionEvent.getEventTime());
+                        }
+                        SwipeAnimation running = findRunningAnimation(mDownView);
+                        if (running != null) {
+                            // take the row over from its animation, keeping the pin it holds
+                            takeOver(running, motionEvent.getEventTime());
+                            // the touch stopped the row as well as the list, so it is not a tap
+                            mCaughtFling = catchFling;
+                        } else {
+                            mDownHolder.setIsRecyclable(false);
+                        }
                         mVelocityTracker = VelocityTracker.obtain();
                         mVelocityTracker.addMovement(motionEvent);
                     } else {
                         mDownView = null;
+                        mDownHolder = null;
                     }
                 }
+                if (mTraceRecorder != null) {
+                    mTraceRecorder.setDownViewWidth(mVelocityTracker != null ? mDownViewWidth : 0);
+                }
                 return false;
             }
 
             case MotionEvent.ACTION_CANCEL: {
+                mCaughtFling = false;
                 if (mVelocityTracker == null) {
                     break;
                 }
 
-                if (mDownView != null && mSwiping) {
-                    // cancel
-                    mDownView.animate()
-                            .translationX(0)
-                            .alpha(1)
-                            .setDuration(mAnimationTime)
-                            .setListener(null);
+                int decision = mGesture.onCancel();
+                if (!mScrubHolders.isEmpty()) {
+                    finishScrub(decision);
+                } else if (decision == SwipeGestureCore.DECISION_CANCEL) {
+                    startAnimation(mDownHolder, 0, 1, getAnimationTime(),
+                            DismissDurations.DEFAULT_INTERPOLATOR, false);
+                } else {
+                    mDownHolder.setIsRecyclable(true);
                 }
-                mVelocityTracker.recycle();
-                mVelocityTracker = null;
-                mDownX = 0;
-                mDownY = 0;
-                mDownView = null;
-                mDownPosition = RecyclerView.NO_POSITION;
-                mSwiping = false;
+                onDismissDone();
+                resetGesture();
                 break;
             }
 
@@ -227,56 +1010,81 @@ public class SwipeDismissRecyclerViewItemTouchListener implements RecyclerView.O
                     break;
                 }
 
-                float deltaX = motionEvent.getRawX() - mDownX;
                 mVelocityTracker.addMovement(motionEvent);
                 mVelocityTracker.computeCurrentVelocity(1000);
                 float velocityX = mVelocityTracker.getXVelocity();
-                float absVelocityX = Math.abs(velocityX);
-                float absVelocityY = Math.abs(mVelocityTracker.getYVelocity());
-                boolean dismiss = false;
-                boolean dismissRight = false;
-                if (Math.abs(deltaX) > mDownView.getWidth() / 2 && mSwiping) {
-                    dismiss = true;
-                    dismissRight = deltaX > 0;
-                } else if (mMinFlingVelocity <= absVelocityX && absVelocityX <= mMaxFlingVelocity
-                        && absVelocityY < absVelocityX && mSwiping) {
-                    // dismiss only if flinging in the same direction as dragging
-                    dismiss = (velocityX < 0) == (deltaX < 0);
-                    dismissRight = mVelocityTracker.getXVelocity() > 0;
+                long sinceTakeOver = motionEvent.getEventTime() - mInheritedVelocityTime;
+                if (mInheritedVelocityX != 0 && sinceTakeOver < INHERITED_VELOCITY_WINDOW) {
+                    // a quick grab and release keeps most of the momentum of the interrupted animation
+                    velocityX += mInheritedVelocityX * (1f - (float) sinceTakeOver / INHERITED_VELOCITY_WINDOW);
+                }
+                if (mTraceRecorder != null) {
+                    mTraceRecorder.setReleaseVelocity(velocityX, mVelocityTracker.getYVelocity());
                 }
-                if (dismiss && mDownPosition != RecyclerView.NO_POSITION) {
+                int decision = mGesture.onUp(motionEvent.getRawX(), motionEvent.getRawY(),
+                        motionEvent.getEventTime(), velocityX, mVelocityTracker.getYVelocity());
+                if (decision != SwipeGestureCore.DECISION_NONE) {
+                    mLastReleaseTime = motionEvent.getEventTime();
+                }
+                if (!mScrubHolders.isEmpty()) {
+                    finishScrub(decision);
+                    onDismissDone();
+                } else if (SwipeGestureCore.isDismiss(decision) && mDownPosition != RecyclerView.NO_POSITION) {
                     // dismiss
                     final RecyclerView.ViewHolder viewHolder = mDownHolder;
-                    final View animatedView = mDownView;
-                    mDownView.animate()
-                            .translationX(dismissRight ? mDownViewWidth : -mDownViewWidth)
-                            .alpha(0)
-                            .setDuration(mAnimationTime)
-                            .setListener(new AnimatorListenerAdapter() {
-                                @Override
-                                public void onAnimationEnd(Animator animation) {
-                                    animatedView.setTranslationX(0);
-                                    viewHolder.setIsRecyclable(true);
-                                    mCallbacks.onDismiss(mRecyclerView, viewHolder);
-                                }
-                            });
-                } else {
+                    float dismissTranslationX = decision == SwipeGestureCore.DECISION_DISMISS_RIGHT
+                            ? mDownViewWidth : -mDownViewWidth;
+                    long dismissDuration = mVelocityDrivenDismiss
+                            ? DismissDurations.forVelocity(dismissTranslationX - mDownView.getTranslationX(),
+                                    velocityX, mMaxDismissDuration)
+                            : mAnimationTime;
+                    dismissDuration = scaleDuration(dismissDuration);
+                    float dismissAlpha = isAlphaEnabled() ? 0 : 1;
+                    if (mPoolManager != null) {
+                        // the slide-out leaves idle frames to create the replacement row in
+                        mPoolManager.onItemDismissed(viewHolder.getItemViewType());
+                    }
+                    Interpolator dismissInterpolator = mVelocityDrivenDismiss
+                            ? DismissDurations.FLING_INTERPOLATOR : DismissDurations.DEFAULT_INTERPOLATOR;
+                    RecyclerView.ItemAnimator itemAnimator = mRecyclerView.getItemAnimator();
+                    if (mAsyncCallbacks != null) {
+                        // the work runs during the slide-out, the row stays pinned until it is done
+                        SwipeAnimation slideOut = startAnimation(viewHolder, dismissTranslationX, dismissAlpha,
+                                dismissDuration, dismissInterpolator, true);
+                        slideOut.mAsyncDismiss = new AsyncDismiss(viewHolder, mAsyncCallbacks);
+                        mAsyncDismisses.add(slideOut.mAsyncDismiss);
+                        mAsyncExecutor.execute(slideOut.mAsyncDismiss.mTask);
+                    } else if (itemAnimator instanceof SwipeDismissItemAnimator) {
+                        // the item animator continues this slide-out as the removal animation,
+                        // so the removal can be notified right away
+                        releaseSnapshot(viewHolder);
+                        markActive();
+                        mDownView.animate()
+                                .translationX(dismissTranslationX)
+                                .alpha(dismissAlpha)
+                                .setDuration(dismissDuration)
+                                .setInterpolator(dismissInterpolator)
+                                .setListener(null);
+                        ((SwipeDismissItemAnimator) itemAnimator).setSlideOut(viewHolder,
+                                dismissTranslationX, dismissDuration, dismissInterpolator);
+                        viewHolder.setIsRecyclable(true);
+                        dispatchDismiss(viewHolder);
+                        onDismissDone();
+                    } else {
+                        startAnimation(viewHolder, dismissTranslationX, dismissAlpha, dismissDuration,
+                                dismissInterpolator, true);
+                    }
+                } else if (decision == SwipeGestureCore.DECISION_CANCEL) {
                     // cancel
-                    mDownView.animate()
-                            .translationX(0)
-                            .alpha(1)
-                            .setDuration(mAnimationTime)
-                            .setListener(null);
+                    startAnimation(mDownHolder, 0, 1, getAnimationTime(),
+                            DismissDurations.DEFAULT_INTERPOLATOR, false);
+                    onDismissDone();
+                } else {
+                    releaseSnapshot(mDownHolder);
+                    mDownHolder.setIsRecyclable(true);
+                    onDismissDone();
                 }
-                mVelocityTracker.recycle();
-                mVelocityTracker = null;
-                mDownX = 0;
-                mDownY = 0;
-                mDownView = null;
-                mDownHolder = null;
-                mDownPosition = RecyclerView.NO_POSITION;
-                mPointerId = MotionEvent.INVALID_POINTER_ID;
-                mSwiping = false;
+                resetGesture();
                 break;
             }
 
@@ -287,17 +1095,26 @@ public class SwipeDismissRecyclerViewItemTouchListener implements RecyclerView.O
                 }
 
                 mVelocityTracker.addMovement(motionEvent);
-                float deltaX = motionEvent.getRawX() - mDownX;
-                float deltaY = motionEvent.getRawY() - mDownY;
-                if (Math.abs(deltaX) > mSlop && Math.abs(deltaY) < Math.abs(deltaX) / 2) {
-                    mSwiping = true;
-                    mSwipingSlop = (deltaX > 0 ? mSlop : -mSlop);
+                if (mTouchPredictor != null) {
+                    addPredictorSamples(motionEvent);
                 }
-
-                if (mSwiping) {
-                    mDownView.setTranslationX(deltaX - mSwipingSlop);
-                    mDownView.setAlpha(Math.max(0f, Math.min(1f,
-                            1f - 2f * Math.abs(deltaX) / mDownViewWidth)));
+                int move = mGesture.onMove(motionEvent.getRawX(), motionEvent.getRawY(),
+                        motionEvent.getEventTime());
+                if (move == SwipeGestureCore.MOVE_SWIPE_STARTED) {
+                    onDismissPending(mDownHolder);
+                    captureSnapshot(mDownHolder);
+                }
+                if (mScrubCallbacks != null && mGesture.isSwiping()) {
+                    scrub(motionEvent.getRawX() - mLocation[0], motionEvent.getRawY() - mLocation[1]);
+                }
+                if (move != SwipeGestureCore.MOVE_IDLE) {
+                    if (mFrameAlignedMoves) {
+                        mMoveScheduler.schedule();
+                    } else {
+                        applySwipe(mGesture.getTranslationX() + getPredictionOffset(motionEvent.getEventTime()),
+                                mGesture.getAlpha());
+                    }
+                    markActive();
                     return true;
                 }
                 break;
@@ -306,4 +1123,595 @@ public class SwipeDismissRecyclerViewItemTouchListener implements RecyclerView.O
         return false;
     }
 
+    /**
+     * Feeds the predictor with the samples batched in the given event, oldest first.
+     */
+    private void addPredictorSamples(MotionEvent motionEvent) {
+        // there is no historical raw position before API 29, but the offset to it is the same
+        float rawOffset = motionEvent.getRawX() - motionEvent.getX();
+        for (int h = 0; h < motionEvent.getHistorySize(); h++) {
+            mTouchPredictor.addSample(motionEvent.getHistoricalX(h) + rawOffset,
+                    motionEvent.getHistoricalEventTime(h));
+        }
+        mTouchPredictor.addSample(motionEvent.getRawX(), motionEvent.getEventTime());
+    }
+
+    private float getPredictionOffset(long time) {
+        return mTouchPredictor != null ? mTouchPredictor.getOffset(time) : 0;
+    }
+
+    /**
+     * Marks the row under the given point, if it can be dismissed along with the swiped one.
+     */
+    private void scrub(float x, float y) {
+        if (mScrubView != null && x >= mScrubView.getLeft() && x < mScrubView.getRight()
+                && y >= mScrubView.getTop() + mScrubView.getTranslationY()
+                && y < mScrubView.getBottom() + mScrubView.getTranslationY()) {
+            // still over the same row, no need for a hit test
+            return;
+        }
+        mScrubView = getChildHitTester().findChildUnder(mRecyclerView, x, y);
+        if (mScrubView == null || mScrubView == mDownView) {
+            return;
+        }
+        RecyclerView.ViewHolder holder = mRecyclerView.getChildViewHolder(mScrubView);
+        int position = holder.getPosition();
+        if (position == RecyclerView.NO_POSITION || mScrubHolders.contains(holder)
+                || findRunningAnimation(mScrubView) != null || findAsyncDismiss(holder) != null
+                || isInDismissWave(holder)
+                || !canDismiss(position)) {
+            return;
+        }
+        holder.setIsRecyclable(false);
+        mScrubHolders.add(holder);
+        applySwipe(mScrubView, mDownView.getTranslationX(), mDownView.getAlpha());
+    }
+
+    /**
+     * Dismisses the marked rows and the swiped one in a single wave, or puts them all back.
+     */
+    private void finishScrub(int decision) {
+        mScrubHolders.add(mDownHolder);
+        if (SwipeGestureCore.isDismiss(decision)) {
+            List<RecyclerView.ViewHolder> holders = new ArrayList<RecyclerView.ViewHolder>(mScrubHolders.size());
+            for (int i = 0; i < mScrubHolders.size(); i++) {
+                RecyclerView.ViewHolder holder = mScrubHolders.get(i);
+                releaseSnapshot(holder);
+                if (holder.getPosition() == RecyclerView.NO_POSITION) {
+                    // removed by the adapter in the meantime
+                    restoreRow(holder);
+                    continue;
+                }
+                // the wave pins the rows again
+                holder.setIsRecyclable(true);
+                holders.add(holder);
+                if (mPoolManager != null) {
+                    mPoolManager.onItemDismissed(holder.getItemViewType());
+                }
+            }
+            if (!holders.isEmpty()) {
+                Collections.sort(holders, POSITION_ORDER);
+                // the positions are read once the layout has caught up with the adapter
+                DismissWave wave = new DismissWave(holders, null, mScrubCallbacks, false,
+                        decision == SwipeGestureCore.DECISION_DISMISS_RIGHT ? 1 : -1);
+                mDismissWaves.add(wave);
+                wave.start();
+                updateWaveObservers();
+            }
+        } else {
+            for (int i = 0; i < mScrubHolders.size(); i++) {
+                startAnimation(mScrubHolders.get(i), 0, 1, getAnimationTime(),
+                        DismissDurations.DEFAULT_INTERPOLATOR, false);
+            }
+        }
+        mScrubHolders.clear();
+    }
+
+    /**
+     * Moves the swiped row, and the rows marked along with it, skipping the writes that would not
+     * change them.
+     */
+    private void applySwipe(float translationX, float alpha) {
+        if (!isAlphaEnabled()) {
+            alpha = 1;
+        }
+        applySwipe(mDownView, translationX, alpha);
+        for (int i = 0; i < mScrubHolders.size(); i++) {
+            applySwipe(mScrubHolders.get(i).itemView, translationX, alpha);
+        }
+    }
+
+    private void applySwipe(View view, float translationX, float alpha) {
+        boolean changed = false;
+        if (view.getTranslationX() != translationX) {
+            view.setTranslationX(translationX);
+            changed = true;
+        }
+        if (view.getAlpha() != alpha) {
+            view.setAlpha(alpha);
+            changed = true;
+        }
+        if (changed && mSnapshots != null && mSnapshots.isCaptured(view)) {
+            // a hidden row does not invalidate the RecyclerView, which draws its snapshot
+            mRecyclerView.invalidate();
+        }
+    }
+
+    private void resetGesture() {
+        if (mMoveScheduler != null) {
+            mMoveScheduler.cancel();
+        }
+        mVelocityTracker.recycle();
+        mVelocityTracker = null;
+        mInheritedVelocityX = 0;
+        mDownView = null;
+        mDownHolder = null;
+        mDownPosition = RecyclerView.NO_POSITION;
+        mPointerId = MotionEvent.INVALID_POINTER_ID;
+        mScrubHolders.clear();
+        mScrubView = null;
+    }
+
+    /**
+     * Animates the row of the given holder, which must be pinned, and releases the pin at the end.
+     */
+    private SwipeAnimation startAnimation(RecyclerView.ViewHolder holder, float translationX, float alpha,
+                                          long duration, Interpolator interpolator, boolean dismiss) {
+        SwipeAnimation animation = new SwipeAnimation(holder, translationX, duration, interpolator, dismiss);
+        mRunningAnimations.add(animation);
+        markActive();
+        holder.itemView.animate()
+                .translationX(translationX)
+                .alpha(alpha)
+                .setDuration(duration)
+                .setInterpolator(interpolator)
+                .setListener(animation);
+        if (mSnapshots != null && mSnapshots.isCaptured(holder.itemView)) {
+            mSnapshotInvalidator.schedule();
+        }
+        return animation;
+    }
+
+    private AsyncDismiss findAsyncDismiss(RecyclerView.ViewHolder holder) {
+        for (int i = mAsyncDismisses.size() - 1; i >= 0; i--) {
+            if (mAsyncDismisses.get(i).mHolder == holder) {
+                return mAsyncDismisses.get(i);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Abandons the current gesture, the running animations and the queued bulk dismissals, putting
+     * their rows back in place.
+     * Called when the {@link RecyclerView} leaves the window, since the end of the animations would
+     * otherwise call back into a client that may be gone.
+     */
+    private void cancelAnimations() {
+        if (mVelocityTracker != null) {
+            restoreRow(mDownHolder);
+            for (int i = 0; i < mScrubHolders.size(); i++) {
+                restoreRow(mScrubHolders.get(i));
+            }
+            resetGesture();
+        }
+        for (int i = mAsyncDismisses.size() - 1; i >= 0; i--) {
+            // the work may already be running: its outcome is simply not reported
+            AsyncDismiss asyncDismiss = mAsyncDismisses.remove(i);
+            asyncDismiss.mAbandoned = true;
+            asyncDismiss.mTask.cancel(false);
+            mMainHandler.removeCallbacks(asyncDismiss);
+            if (asyncDismiss.mSlidOut) {
+                // otherwise its slide-out still holds the pin, restored with the animations below
+                restoreRow(asyncDismiss.mHolder);
+            }
+        }
+        onDismissDone();
+        if (mSnapshots != null) {
+            mSnapshots.releaseAll();
+        }
+        for (int i = mRunningAnimations.size() - 1; i >= 0; i--) {
+            SwipeAnimation animation = mRunningAnimations.remove(i);
+            // handled like a take-over, so that its end neither releases the pin nor dismisses
+            animation.mTakenOver = true;
+            View view = animation.mHolder.itemView;
+            view.animate().cancel();
+            view.animate().setListener(null);
+            restoreRow(animation.mHolder);
+        }
+        abandonDismissWaves();
+    }
+
+    private static void restoreRow(RecyclerView.ViewHolder holder) {
+        holder.itemView.setTranslationX(0);
+        holder.itemView.setAlpha(1);
+        holder.setIsRecyclable(true);
+    }
+
+    /**
+     * Lets a {@link BindAheadLinearLayoutManager} bind the rows the dismissal of the given row would
+     * reveal.
+     */
+    private void onDismissPending(RecyclerView.ViewHolder holder) {
+        RecyclerView.LayoutManager layoutManager = mRecyclerView.getLayoutManager();
+        if (layoutManager instanceof BindAheadLinearLayoutManager) {
+            ((BindAheadLinearLayoutManager) layoutManager).onDismissPending(holder);
+        }
+    }
+
+    private boolean canDismiss(int position) {
+        long start = startCallback();
+        boolean canDismiss = mDismissabilityIndex != null
+                ? mDismissabilityIndex.canDismiss(position, mCallbacks)
+                : mCallbacks.canDismiss(position);
+        endCallback(SlowCallbackWatchdog.KIND_CAN_DISMISS, start, position);
+        return canDismiss;
+    }
+
+    private void dispatchDismiss(RecyclerView.ViewHolder holder) {
+        // the position is gone once the client removed the item
+        int position = holder.getPosition();
+        retainDismissed(holder);
+        long start = startCallback();
+        mCallbacks.onDismiss(mRecyclerView, holder);
+        endCallback(SlowCallbackWatchdog.KIND_ON_DISMISS, start, position);
+        onCommitted(position);
+    }
+
+    private void retainDismissed(RecyclerView.ViewHolder holder) {
+        if (mHolderCache != null) {
+            mHolderCache.onDismissed(holder);
+        }
+    }
+
+    /**
+     * @return the time to pass to {@link #endCallback(int, long, int)}, 0 without a watchdog
+     */
+    private long startCallback() {
+        return mWatchdog != null ? mWatchdog.onCallbackStart() : 0;
+    }
+
+    private void endCallback(int kind, long start, int position) {
+        if (mWatchdog != null && start != 0) {
+            mWatchdog.onCallbackEnd(kind, start, position);
+        }
+    }
+
+    private void onCommitted(int position) {
+        if (mWatchdog != null) {
+            mWatchdog.onCommitted(position);
+        }
+    }
+
+    private void captureSnapshot(RecyclerView.ViewHolder holder) {
+        if (mSnapshots != null) {
+            mSnapshots.capture(holder);
+        }
+    }
+
+    private void releaseSnapshot(RecyclerView.ViewHolder holder) {
+        if (mSnapshots != null) {
+            mSnapshots.release(holder);
+        }
+    }
+
+    private void onDismissDone() {
+        RecyclerView.LayoutManager layoutManager = mRecyclerView.getLayoutManager();
+        if (layoutManager instanceof BindAheadLinearLayoutManager) {
+            ((BindAheadLinearLayoutManager) layoutManager).onDismissDone();
+        }
+    }
+
+    private long getAnimationTime() {
+        return scaleDuration(mAnimationTime);
+    }
+
+    private long scaleDuration(long duration) {
+        return mQualityController != null ? mQualityController.scaleDuration(duration) : duration;
+    }
+
+    private boolean isAlphaEnabled() {
+        return mQualityController == null || mQualityController.isAlphaEnabled();
+    }
+
+    private void markActive() {
+        if (mQualityController != null) {
+            mQualityController.markActive();
+        }
+    }
+
+    private SwipeAnimation findRunningAnimation(View view) {
+        for (int i = mRunningAnimations.size() - 1; i >= 0; i--) {
+            if (mRunningAnimations.get(i).mHolder.itemView == view) {
+                return mRunningAnimations.get(i);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Cancels a running animation and continues the current gesture from where it left the row.
+     */
+    private void takeOver(SwipeAnimation animation, long eventTime) {
+        mInheritedVelocityX = animation.getVelocity(eventTime);
+        mInheritedVelocityTime = eventTime;
+        animation.mTakenOver = true;
+        mRunningAnimations.remove(animation);
+        mDownView.animate().cancel();
+        mGesture.resumeFrom(mDownView.getTranslationX());
+        if (mGesture.isSwiping()) {
+            onDismissPending(mDownHolder);
+            captureSnapshot(mDownHolder);
+        }
+    }
+
+    /**
+     * A slide-out or settle animation of a pinned row, which releases the pin when it ends unless a
+     * new gesture took the row over.
+     */
+    private class SwipeAnimation extends AnimatorListenerAdapter {
+        final RecyclerView.ViewHolder mHolder;
+        final float mFromTranslationX;
+        final float mToTranslationX;
+        final long mStartTime;
+        final long mDuration;
+        final Interpolator mInterpolator;
+        final boolean mDismiss;
+        boolean mTakenOver;
+        AsyncDismiss mAsyncDismiss;
+
+        SwipeAnimation(RecyclerView.ViewHolder holder, float toTranslationX, long duration,
+                       Interpolator interpolator, boolean dismiss) {
+            mHolder = holder;
+            mFromTranslationX = holder.itemView.getTranslationX();
+            mToTranslationX = toTranslationX;
+            mStartTime = SystemClock.uptimeMillis();
+            mDuration = duration;
+            mInterpolator = interpolator;
+            mDismiss = dismiss;
+        }
+
+        /**
+         * @return the current velocity of the row, in px/s
+         */
+        float getVelocity(long time) {
+            if (mDuration <= 0) {
+                return 0;
+            }
+            float fraction = Math.min(1f, Math.max(0f, (float) (time - mStartTime) / mDuration));
+            float step = Math.min(0.01f, 1f - fraction);
+            if (step <= 0) {
+                return 0;
+            }
+            float slope = (mInterpolator.getInterpolation(fraction + step)
+                    - mInterpolator.getInterpolation(fraction)) / step;
+            return slope * (mToTranslationX - mFromTranslationX) * 1000f / mDuration;
+        }
+
+        @Override
+        public void onAnimationEnd(Animator animation) {
+            if (mTakenOver) {
+                return;
+            }
+            mRunningAnimations.remove(this);
+            releaseSnapshot(mHolder);
+            if (mAsyncDismiss != null) {
+                // keeps the pin until the work is done
+                mAsyncDismiss.onSlidOut();
+                return;
+            }
+            mHolder.setIsRecyclable(true);
+            if (mDismiss) {
+                // hidden until the removal animation, even if the slide-out did not fade it
+                mHolder.itemView.setTranslationX(0);
+                mHolder.itemView.setAlpha(0);
+                dispatchDismiss(mHolder);
+                onDismissDone();
+            }
+        }
+    }
+
+    /**
+     * A bulk dismissal waiting for its wave to start.
+     */
+    private static final class BulkRequest {
+        final DismissPositions mPositions;
+        final BulkDismissCallbacks mCallbacks;
+
+        BulkRequest(DismissPositions positions, BulkDismissCallbacks callbacks) {
+            mPositions = positions;
+            mCallbacks = callbacks;
+        }
+    }
+
+    /**
+     * The slide-out of the visible rows of a bulk dismissal, driven by a single animator. The rows
+     * are pinned until the end of the wave, when all the dismissed positions are reported.
+     */
+    private class DismissWave extends AnimatorListenerAdapter implements ValueAnimator.AnimatorUpdateListener {
+        final List<RecyclerView.ViewHolder> mHolders;
+        // null until the positions of the holders can be trusted
+        DismissPositions mPositions;
+        final BulkDismissCallbacks mBulkCallbacks;
+        final ValueAnimator mAnimator;
+        final long mRowDuration;
+        final long mStagger;
+        final boolean mFade;
+        final float mDirection;
+        final float[] mFromTranslationX;
+        final float[] mFromAlpha;
+
+        /**
+         * @param staggered whether the rows slide out one after the other rather than together
+         * @param direction 1 to slide the rows out to the right, -1 to the left
+         */
+        DismissWave(List<RecyclerView.ViewHolder> holders, DismissPositions positions,
+                    BulkDismissCallbacks callbacks, boolean staggered, float direction) {
+            mHolders = holders;
+            mPositions = positions;
+            mBulkCallbacks = callbacks;
+            mRowDuration = getAnimationTime();
+            // a long list of rows must not take forever to clear
+            mStagger = staggered && holders.size() > 1
+                    ? Math.min(scaleDuration(WAVE_STAGGER), mRowDuration * 2 / (holders.size() - 1)) : 0;
+            mFade = isAlphaEnabled();
+            mDirection = direction;
+            // scrubbed rows continue from where the gesture left them
+            mFromTranslationX = new float[holders.size()];
+            mFromAlpha = new float[holders.size()];
+            for (int i = 0; i < holders.size(); i++) {
+                mFromTranslationX[i] = holders.get(i).itemView.getTranslationX();
+                mFromAlpha[i] = holders.get(i).itemView.getAlpha();
+            }
+            mAnimator = ValueAnimator.ofFloat(0, 1)
+                    .setDuration(mRowDuration + mStagger * (holders.size() - 1));
+            mAnimator.setInterpolator(new LinearInterpolator());
+        }
+
+        /**
+         * Reads the positions of the holders, if they are not known yet.
+         */
+        void resolvePositions() {
+            if (mPositions != null) {
+                return;
+            }
+            int[] positions = new int[mHolders.size()];
+            int count = 0;
+            for (RecyclerView.ViewHolder holder : mHolders) {
+                if (holder.getPosition() != RecyclerView.NO_POSITION) {
+                    positions[count++] = holder.getPosition();
+                }
+            }
+            Arrays.sort(positions, 0, count);
+            mPositions = new DismissPositions(positions, count);
+            mTrackedPositions.add(mPositions);
+        }
+
+        void start() {
+            for (RecyclerView.ViewHolder holder : mHolders) {
+                holder.setIsRecyclable(false);
+            }
+            mAnimator.addUpdateListener(this);
+            mAnimator.addListener(this);
+            markActive();
+            mAnimator.start();
+        }
+
+        @Override
+        public void onAnimationUpdate(ValueAnimator animator) {
+            markActive();
+            float elapsed = animator.getAnimatedFraction() * animator.getDuration();
+            for (int i = 0; i < mHolders.size(); i++) {
+                float fraction = Math.min(1f, Math.max(0f, (elapsed - i * mStagger) / mRowDuration));
+                View view = mHolders.get(i).itemView;
+                float interpolated = DismissDurations.DEFAULT_INTERPOLATOR.getInterpolation(fraction);
+                view.setTranslationX(mFromTranslationX[i]
+                        + (mDirection * view.getWidth() - mFromTranslationX[i]) * interpolated);
+                if (mFade) {
+                    view.setAlpha(mFromAlpha[i] * (1f - fraction));
+                }
+            }
+        }
+
+        @Override
+        public void onAnimationEnd(Animator animation) {
+            if (!mDismissWaves.remove(this)) {
+                // torn down
+                return;
+            }
+            // ended before its first frame
+            resolvePositions();
+            mTrackedPositions.remove(mPositions);
+            updateWaveObservers();
+            for (RecyclerView.ViewHolder holder : mHolders) {
+                // hidden until the removal animation, like a swiped row
+                holder.itemView.setTranslationX(0);
+                holder.itemView.setAlpha(0);
+                holder.setIsRecyclable(true);
+                retainDismissed(holder);
+            }
+            if (mPositions.size() > 0) {
+                reportDismissRanges(mPositions, mBulkCallbacks);
+            }
+        }
+    }
+
+    /**
+     * A dismissal waiting for both its slide-out and the client's work to end. Its pinned row is
+     * then either removed or animated back.
+     */
+    private class AsyncDismiss implements Runnable {
+        final RecyclerView.ViewHolder mHolder;
+        final AsyncDismissCallbacks mClient;
+        final FutureTask<Object> mTask;
+        boolean mSlidOut;
+        boolean mWorkDone;
+        boolean mAbandoned;
+
+        AsyncDismiss(RecyclerView.ViewHolder holder, AsyncDismissCallbacks client) {
+            mHolder = holder;
+            mClient = client;
+            long start = startCallback();
+            final Callable<?> work = client.onDismissRequested(mRecyclerView, holder);
+            endCallback(SlowCallbackWatchdog.KIND_ON_DISMISS_REQUESTED, start, holder.getPosition());
+            mTask = new FutureTask<Object>(new Callable<Object>() {
+                @Override
+                public Object call() throws Exception {
+                    return work.call();
+                }
+            }) {
+                @Override
+                protected void done() {
+                    mMainHandler.post(AsyncDismiss.this);
+                }
+            };
+        }
+
+        void onSlidOut() {
+            mSlidOut = true;
+            finishIfReady();
+        }
+
+        @Override
+        public void run() {
+            mWorkDone = true;
+            finishIfReady();
+        }
+
+        private void finishIfReady() {
+            if (!mSlidOut || !mWorkDone || mAbandoned) {
+                return;
+            }
+            mAsyncDismisses.remove(this);
+            Throwable error = null;
+            try {
+                mTask.get();
+            } catch (ExecutionException e) {
+                error = e.getCause();
+            } catch (CancellationException e) {
+                error = e;
+            } catch (InterruptedException e) {
+                error = e;
+            }
+
+            int position = mHolder.getPosition();
+            long start = startCallback();
+            if (error == null) {
+                mHolder.setIsRecyclable(true);
+                // hidden until the removal animation, like a synchronous dismissal
+                mHolder.itemView.setTranslationX(0);
+                mHolder.itemView.setAlpha(0);
+                retainDismissed(mHolder);
+                mClient.onDismissCommitted(mRecyclerView, mHolder);
+                endCallback(SlowCallbackWatchdog.KIND_ON_DISMISS_COMMITTED, start, position);
+                onCommitted(position);
+            } else {
+                // the settle animation releases the pin
+                mClient.onDismissRolledBack(mRecyclerView, mHolder, error);
+                endCallback(SlowCallbackWatchdog.KIND_ON_DISMISS_ROLLED_BACK, start, position);
+                startAnimation(mHolder, 0, 1, getAnimationTime(), DismissDurations.DEFAULT_INTERPOLATOR, false);
+            }
+            onDismissDone();
+        }
+    }
 }
@@ -59,21 +59,19 @@ import android.widget.ListView;
  */
 public class SwipeDismissTouchListener implements View.OnTouchListener {
     // Cached ViewConfiguration and system-wide constant values
-    private int mSlop;
-    private int mMinFlingVelocity;
-    private int mMaxFlingVelocity;
     private long mAnimationTime;
+    private boolean mVelocityDrivenDismiss;
+    private long mMaxDismissDuration;
 
     // Fixed properties
     private View mView;
     private DismissCallbacks mCallbacks;
+    private final SwipeGestureCore mGesture;
+    private AdaptiveQualityController mQualityController;
+    private TouchPredictor mTouchPredictor;
     private int mViewWidth = 1; // 1 and not 0 to prevent dividing by zero
 
     // Transient properties
-    private float mDownX;
-    private float mDownY;
-    private boolean mSwiping;
-    private int mSwipingSlop;
     private Object mToken;
     private VelocityTracker mVelocityTracker;
     private float mTranslationX;
@@ -107,16 +105,70 @@ public class SwipeDismissTouchListener implements View.OnTouchListener {
      */
     public SwipeDismissTouchListener(View view, Object token, DismissCallbacks callbacks) {
         ViewConfiguration vc = ViewConfiguration.get(view.getContext());
-        mSlop = vc.getScaledTouchSlop();
-        mMinFlingVelocity = vc.getScaledMinimumFlingVelocity() * 16;
-        mMaxFlingVelocity = vc.getScaledMaximumFlingVelocity();
+        mGesture = new SwipeGestureCore(vc.getScaledTouchSlop(),
+                vc.getScaledMinimumFlingVelocity() * 16, vc.getScaledMaximumFlingVelocity());
         mAnimationTime = view.getContext().getResources().getInteger(
                 android.R.integer.config_shortAnimTime);
+        mMaxDismissDuration = mAnimationTime;
         mView = view;
         mToken = token;
         mCallbacks = callbacks;
     }
 
+    /**
+     * Makes the slide-out of a dismissed item continue at the velocity the user released it with,
+     * decelerating until it is off screen, rather than run for a fixed duration. Fast flings then
+     * clear the item in a fraction of the default time.
+     *
+     * @param enabled     Whether or not the slide-out follows the release velocity.
+     * @param maxDuration The duration used for slow releases, in ms. Use the default animation
+     *                    time ({@code android.R.integer.config_shortAnimTime}) to never be slower
+     *                    than with a fixed duration.
+     */
+    public void setVelocityDrivenDismiss(boolean enabled, long maxDuration) {
+        if (maxDuration <= 0) {
+            throw new IllegalArgumentException("invalid duration");
+        }
+        mVelocityDrivenDismiss = enabled;
+        mMaxDismissDuration = maxDuration;
+    }
+
+    /**
+     * Sets where to count the gestures handled by this listener.
+     *
+     * @param statistics the statistics to update, or null to stop counting
+     */
+    public void setStatistics(SwipeStatistics statistics) {
+        mGesture.setStatistics(statistics);
+    }
+
+    /**
+     * Draws the swiped view where the finger is predicted to be once the frame is displayed, rather
+     * than where it was at the last touch sample, which hides a frame or two of touch latency during
+     * fast swipes. The prediction only moves the view: dismiss decisions use the measured positions,
+     * and the animations started on release continue from wherever the view is drawn.
+     *
+     * @param predictionTime how far ahead to predict, in ms, typically one to two frames; 0 to disable
+     * @param maxOffset      the largest distance, in px, between the predicted and measured positions
+     */
+    public void setTouchPrediction(long predictionTime, float maxOffset) {
+        mTouchPredictor = predictionTime > 0 ? new TouchPredictor(predictionTime, maxOffset) : null;
+    }
+
+    /**
+     * Sets a controller that lowers the effects of the swipe, the slide-out and the collapse when
+     * frames are dropped.
+     *
+     * @param qualityController the controller, or null to always use all effects. The previous
+     *                          controller, if any, is released.
+     */
+    public void setQualityController(AdaptiveQualityController qualityController) {
+        if (mQualityController != null && mQualityController != qualityController) {
+            mQualityController.release();
+        }
+        mQualityController = qualityController;
+    }
+
     @Override
     public boolean onTouch(View view, MotionEvent motionEvent) {
         // offset because the view is translated during swipe
@@ -129,9 +181,13 @@ public class SwipeDismissTouchListener implements View.OnTouchListener {
         switch (motionEvent.getActionMasked()) {
             case MotionEvent.ACTION_DOWN: {
                 // TODO: ensure this is a finger, and set a flag
-                mDownX = motionEvent.getRawX();
-                mDownY = motionEvent.getRawY();
                 if (mCallbacks.canDismiss(mToken)) {
+                    mGesture.onDown(motionEvent.getRawX(), motionEvent.getRawY(),
+                            motionEvent.getEventTime(), mViewWidth);
+                    if (mTouchPredictor != null) {
+                        mTouchPredictor.reset();
+                        mTouchPredictor.addSample(motionEvent.getRawX(), motionEvent.getEventTime());
+                    }
                     mVelocityTracker = VelocityTracker.obtain();
                     mVelocityTracker.addMovement(motionEvent);
                 }
@@ -143,50 +199,39 @@ public class SwipeDismissTouchListener implements View.OnTouchListener {
                     break;
                 }
 
-                float deltaX = motionEvent.getRawX() - mDownX;
                 mVelocityTracker.addMovement(motionEvent);
                 mVelocityTracker.computeCurrentVelocity(1000);
                 float velocityX = mVelocityTracker.getXVelocity();
-                float absVelocityX = Math.abs(velocityX);
-                float absVelocityY = Math.abs(mVelocityTracker.getYVelocity());
-                boolean dismiss = false;
-                boolean dismissRight = false;
-                if (Math.abs(deltaX) > mViewWidth / 2 && mSwiping) {
-                    dismiss = true;
-                    dismissRight = deltaX > 0;
-                } else if (mMinFlingVelocity <= absVelocityX && absVelocityX <= mMaxFlingVelocity
-                        && absVelocityY < absVelocityX
-                        && absVelocityY < absVelocityX && mSwiping) {
-                    // dismiss only if flinging in the same direction as dragging
-                    dismiss = (velocityX < 0) == (deltaX < 0);
-                    dismissRight = mVelocityTracker.getXVelocity() > 0;
-                }
-                if (dismiss) {
+                int decision = mGesture.onUp(motionEvent.getRawX(), motionEvent.getRawY(),
+                        motionEvent.getEventTime(), velocityX, mVelocityTracker.getYVelocity());
+                if (SwipeGestureCore.isDismiss(decision)) {
                     // dismiss
+                    float dismissTranslationX = decision == SwipeGestureCore.DECISION_DISMISS_RIGHT
+                            ? mViewWidth : -mViewWidth;
+                    long dismissDuration = mVelocityDrivenDismiss
+                            ? DismissDurations.forVelocity(dismissTranslationX - mView.getTranslationX(),
+                                    velocityX, mMaxDismissDuration)
+                            : mAnimationTime;
+                    markActive();
                     mView.animate()
-                            .translationX(dismissRight ? mViewWidth : -mViewWidth)
-                            .alpha(0)
-                            .setDuration(mAnimationTime)
+                            .translationX(dismissTranslationX)
+                            .alpha(isAlphaEnabled() ? 0 : 1)
+                            .setDuration(scaleDuration(dismissDuration))
+                            .setInterpolator(mVelocityDrivenDismiss
+                                    ? DismissDurations.FLING_INTERPOLATOR : DismissDurations.DEFAULT_INTERPOLATOR)
                             .setListener(new AnimatorListenerAdapter() {
                                 @Override
                                 public void onAnimationEnd(Animator animation) {
                                     performDismiss();
                                 }
                             });
-                } else if (mSwiping) {
+                } else if (decision == SwipeGestureCore.DECISION_CANCEL) {
                     // cancel
-                    mView.animate()
-                            .translationX(0)
-                            .alpha(1)
-                            .setDuration(mAnimationTime)
-                            .setListener(null);
+                    animateBack();
                 }
                 mVelocityTracker.recycle();
                 mVelocityTracker = null;
                 mTranslationX = 0;
-                mDownX = 0;
-                mDownY = 0;
-                mSwiping = false;
                 break;
             }
 
@@ -195,17 +240,12 @@ public class SwipeDismissTouchListener implements View.OnTouchListener {
                     break;
                 }
 
-                mView.animate()
-                        .translationX(0)
-                        .alpha(1)
-                        .setDuration(mAnimationTime)
-                        .setListener(null);
+                if (mGesture.onCancel() == SwipeGestureCore.DECISION_CANCEL) {
+                    animateBack();
+                }
                 mVelocityTracker.recycle();
                 mVelocityTracker = null;
                 mTranslationX = 0;
-                mDownX = 0;
-                mDownY = 0;
-                mSwiping = false;
                 break;
             }
 
@@ -215,11 +255,12 @@ public class SwipeDismissTouchListener implements View.OnTouchListener {
                 }
 
                 mVelocityTracker.addMovement(motionEvent);
-                float deltaX = motionEvent.getRawX() - mDownX;
-                float deltaY = motionEvent.getRawY() - mDownY;
-                if (Math.abs(deltaX) > mSlop && Math.abs(deltaY) < Math.abs(deltaX) / 2) {
-                    mSwiping = true;
-                    mSwipingSlop = (deltaX > 0 ? mSlop : -mSlop);
+                if (mTouchPredictor != null) {
+                    addPredictorSamples(motionEvent);
+                }
+                int move = mGesture.onMove(motionEvent.getRawX(), motionEvent.getRawY(),
+                        motionEvent.getEventTime());
+                if (move == SwipeGestureCore.MOVE_SWIPE_STARTED) {
                     mView.getParent().requestDisallowInterceptTouchEvent(true);
 
                     // Cancel listview's touch
@@ -231,12 +272,13 @@ public class SwipeDismissTouchListener implements View.OnTouchListener {
                     cancelEvent.recycle();
                 }
 
-                if (mSwiping) {
-                    mTranslationX = deltaX;
-                    mView.setTranslationX(deltaX - mSwipingSlop);
+                if (move != SwipeGestureCore.MOVE_IDLE) {
+                    mTranslationX = mGesture.getDeltaX();
+                    mView.setTranslationX(mGesture.getTranslationX()
+                            + getPredictionOffset(motionEvent.getEventTime()));
                     // TODO: use an ease-out interpolator or such
-                    mView.setAlpha(Math.max(0f, Math.min(1f,
-                            1f - 2f * Math.abs(deltaX) / mViewWidth)));
+                    mView.setAlpha(isAlphaEnabled() ? mGesture.getAlpha() : 1);
+                    markActive();
                     return true;
                 }
                 break;
@@ -245,15 +287,34 @@ public class SwipeDismissTouchListener implements View.OnTouchListener {
         return false;
     }
 
+    private void animateBack() {
+        markActive();
+        mView.animate()
+                .translationX(0)
+                .alpha(1)
+                .setDuration(scaleDuration(mAnimationTime))
+                .setInterpolator(DismissDurations.DEFAULT_INTERPOLATOR)
+                .setListener(null);
+    }
+
     private void performDismiss() {
         // Animate the dismissed view to zero-height and then fire the dismiss callback.
         // This triggers layout on each animation frame; in the future we may want to do something
         // smarter and more performant.
 
+        if (mQualityController != null && !mQualityController.isCollapseEnabled()) {
+            // the frame budget is already blown, let the parent close the gap in one layout
+            mCallbacks.onDismiss(mView, mToken);
+            mView.setAlpha(1f);
+            mView.setTranslationX(0);
+            return;
+        }
+
         final ViewGroup.LayoutParams lp = mView.getLayoutParams();
         final int originalHeight = mView.getHeight();
 
-        ValueAnimator animator = ValueAnimator.ofInt(originalHeight, 1).setDuration(mAnimationTime);
+        markActive();
+        ValueAnimator animator = ValueAnimator.ofInt(originalHeight, 1).setDuration(scaleDuration(mAnimationTime));
 
         animator.addListener(new AnimatorListenerAdapter() {
             @Override
@@ -277,4 +338,35 @@ public class SwipeDismissTouchListener implements View.OnTouchListener {
 
         animator.start();
     }
-}
\ No newline at end of file
+
+    /**
+     * Feeds the predictor with the samples batched in the given event, oldest first.
+     */
+    private void addPredictorSamples(MotionEvent motionEvent) {
+        // there is no historical raw position before API 29, but the offset to it is the same
+        float rawOffset = motionEvent.getRawX() - motionEvent.getX();
+        for (int h = 0; h < motionEvent.getHistorySize(); h++) {
+            mTouchPredictor.addSample(motionEvent.getHistoricalX(h) + rawOffset,
+                    motionEvent.getHistoricalEventTime(h));
+        }
+        mTouchPredictor.addSample(motionEvent.getRawX(), motionEvent.getEventTime());
+    }
+
+    private float getPredictionOffset(long time) {
+        return mTouchPredictor != null ? mTouchPredictor.getOffset(time) : 0;
+    }
+
+    private long scaleDuration(long duration) {
+        return mQualityController != null ? mQualityController.scaleDuration(duration) : duration;
+    }
+
+    private boolean isAlphaEnabled() {
+        return mQualityController == null || mQualityController.isAlphaEnabled();
+    }
+
+    private void markActive() {
+        if (mQualityController != null) {
+            mQualityController.markActive();
+        }
+    }
+}
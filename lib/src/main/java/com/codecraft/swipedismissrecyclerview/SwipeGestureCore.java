@@ -0,0 +1,387 @@
+/*
+ * Copyright 2014 François Blavoet
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.codecraft.swipedismissrecyclerview;
+
+/**
+ * The swipe-to-dismiss gesture state machine shared by the swipe listeners.
+ *
+ * <p>This class does not depend on Android and only deals with primitives: the listeners feed it
+ * raw coordinates and timestamps and act on the decisions it returns. A gesture starts with
+ * {@link #onDown}, turns into a swipe once it moves horizontally past the touch slop, twice as much
+ * as vertically, and ends with {@link #onUp}, which decides between dismissing the view and
+ * putting it back, or with {@link #onCancel}.</p>
+ *
+ * <p>When no velocity is supplied, it is estimated from the last samples, which makes the core
+ * usable on its own, for instance on the JVM. As a {@link GestureTraceReplayer.Target}, it replays
+ * the gestures of a trace the way the listener that recorded it handled them.</p>
+ */
+public final class SwipeGestureCore implements GestureTraceReplayer.Target {
+
+    /** No gesture was being swiped. */
+    public static final int DECISION_NONE = 0;
+    /** The view must be put back in place. */
+    public static final int DECISION_CANCEL = 1;
+    /** The view must be dismissed to the left. */
+    public static final int DECISION_DISMISS_LEFT = 2;
+    /** The view must be dismissed to the right. */
+    public static final int DECISION_DISMISS_RIGHT = 3;
+
+    /** The gesture is not a swipe (yet). */
+    public static final int MOVE_IDLE = 0;
+    /** The gesture just turned into a swipe. */
+    public static final int MOVE_SWIPE_STARTED = 1;
+    /** The gesture is a swipe. */
+    public static final int MOVE_SWIPING = 2;
+
+    private static final int VELOCITY_SAMPLES = 8;
+    private static final long VELOCITY_HORIZON = 100;
+    // Resampling follows the framework's: a little behind the frame, with bounded extrapolation
+    private static final long RESAMPLE_LATENCY = 5;
+    private static final long MAX_PREDICTION = 8;
+
+    // Configuration
+    private final int mSlop;
+    private final int mMinFlingVelocity;
+    private final int mMaxFlingVelocity;
+    private SwipeStatistics mStatistics;
+
+    // Gesture state
+    private boolean mTracking;
+    private boolean mSwiping;
+    private float mDownX;
+    private float mDownY;
+    private long mDownTime;
+    private int mSwipingSlop;
+    private float mDeltaX;
+    private int mViewWidth = 1; // 1 and not 0 to prevent dividing by zero
+    private int mLastDecision = DECISION_NONE;
+    private int mReplayPointerId = -1;
+
+    // Recent samples, for the velocity estimate
+    private final float[] mSampleX = new float[VELOCITY_SAMPLES];
+    private final float[] mSampleY = new float[VELOCITY_SAMPLES];
+    private final long[] mSampleTime = new long[VELOCITY_SAMPLES];
+    private int mSampleHead;
+    private int mSampleCount;
+
+    /**
+     * @param slop             the distance, in px, a touch can wander before it is a swipe
+     * @param minFlingVelocity the minimum velocity, in px/s, for a release to count as a fling
+     * @param maxFlingVelocity the maximum velocity, in px/s, for a release to count as a fling
+     */
+    public SwipeGestureCore(int slop, int minFlingVelocity, int maxFlingVelocity) {
+        mSlop = slop;
+        mMinFlingVelocity = minFlingVelocity;
+        mMaxFlingVelocity = maxFlingVelocity;
+    }
+
+    /**
+     * @param statistics where to count the gestures, or null to stop counting
+     */
+    public void setStatistics(SwipeStatistics statistics) {
+        mStatistics = statistics;
+    }
+
+    /**
+     * Starts tracking a gesture.
+     *
+     * @param viewWidth the width of the view being swiped, in px
+     */
+    public void onDown(float x, float y, long time, int viewWidth) {
+        mTracking = true;
+        mSwiping = false;
+        mDownX = x;
+        mDownY = y;
+        mDownTime = time;
+        mSwipingSlop = 0;
+        mDeltaX = 0;
+        mViewWidth = Math.max(1, viewWidth);
+        mSampleCount = 0;
+        addSample(x, y, time);
+        if (mStatistics != null) {
+            mStatistics.onTouch();
+        }
+    }
+
+    /**
+     * Continues the gesture started with {@link #onDown} from a view that is already translated, for
+     * instance by an interrupted animation. The gesture is a swipe right away if the view is not in
+     * place.
+     */
+    public void resumeFrom(float translationX) {
+        mDownX -= translationX;
+        mDeltaX = translationX;
+        mSwipingSlop = 0;
+        mSwiping = translationX != 0;
+        if (mSwiping && mStatistics != null) {
+            mStatistics.onSwipeStarted(-1);
+        }
+    }
+
+    /**
+     * @return one of {@link #MOVE_IDLE}, {@link #MOVE_SWIPE_STARTED} and {@link #MOVE_SWIPING}
+     */
+    public int onMove(float x, float y, long time) {
+        if (!mTracking) {
+            return MOVE_IDLE;
+        }
+        addSample(x, y, time);
+        mDeltaX = x - mDownX;
+        float deltaY = y - mDownY;
+        int result = MOVE_IDLE;
+        if (!mSwiping && Math.abs(mDeltaX) > mSlop && Math.abs(deltaY) < Math.abs(mDeltaX) / 2) {
+            mSwiping = true;
+            mSwipingSlop = (mDeltaX > 0 ? mSlop : -mSlop);
+            result = MOVE_SWIPE_STARTED;
+            if (mStatistics != null) {
+                mStatistics.onSwipeStarted(time - mDownTime);
+            }
+        } else if (mSwiping) {
+            result = MOVE_SWIPING;
+        }
+        return result;
+    }
+
+    /**
+     * Ends the gesture, estimating the release velocity from the last samples.
+     *
+     * @return one of the {@code DECISION_*} values
+     */
+    public int onUp(float x, float y, long time) {
+        addSample(x, y, time);
+        return onUp(x, y, time, estimateVelocity(mSampleX, time), estimateVelocity(mSampleY, time));
+    }
+
+    /**
+     * Ends the gesture.
+     *
+     * @param velocityX the release velocity along x, in px/s
+     * @param velocityY the release velocity along y, in px/s
+     * @return one of the {@code DECISION_*} values
+     */
+    public int onUp(float x, float y, long time, float velocityX, float velocityY) {
+        if (!mTracking) {
+            return DECISION_NONE;
+        }
+        mDeltaX = x - mDownX;
+        int decision = DECISION_NONE;
+        if (mSwiping) {
+            float absVelocityX = Math.abs(velocityX);
+            boolean fling = false;
+            decision = DECISION_CANCEL;
+            if (Math.abs(mDeltaX) > mViewWidth / 2f) {
+                decision = mDeltaX > 0 ? DECISION_DISMISS_RIGHT : DECISION_DISMISS_LEFT;
+            } else if (mMinFlingVelocity <= absVelocityX && absVelocityX <= mMaxFlingVelocity
+                    && Math.abs(velocityY) < absVelocityX
+                    // dismiss only if flinging in the same direction as dragging
+                    && (velocityX < 0) == (mDeltaX < 0)) {
+                decision = velocityX > 0 ? DECISION_DISMISS_RIGHT : DECISION_DISMISS_LEFT;
+                fling = true;
+            }
+            if (mStatistics != null) {
+                mStatistics.onSwipeEnded(decision, fling, time - mDownTime);
+            }
+        }
+        mTracking = false;
+        mSwiping = false;
+        mLastDecision = decision;
+        return decision;
+    }
+
+    /**
+     * Aborts the gesture.
+     *
+     * @return {@link #DECISION_CANCEL} if the view was being swiped, {@link #DECISION_NONE} otherwise
+     */
+    public int onCancel() {
+        int decision = mTracking && mSwiping ? DECISION_CANCEL : DECISION_NONE;
+        if (decision == DECISION_CANCEL && mStatistics != null) {
+            mStatistics.onSwipeEnded(decision, false, -1);
+        }
+        mTracking = false;
+        mSwiping = false;
+        mLastDecision = decision;
+        return decision;
+    }
+
+    public boolean isTracking() {
+        return mTracking;
+    }
+
+    public boolean isSwiping() {
+        return mSwiping;
+    }
+
+    public long getDownTime() {
+        return mDownTime;
+    }
+
+    /**
+     * @return the horizontal distance from the down position, in px
+     */
+    public float getDeltaX() {
+        return mDeltaX;
+    }
+
+    /**
+     * @return the translation to apply to the swiped view, in px
+     */
+    public float getTranslationX() {
+        return mDeltaX - mSwipingSlop;
+    }
+
+    /**
+     * @return the alpha to apply to the swiped view
+     */
+    public float getAlpha() {
+        return alphaFor(mDeltaX);
+    }
+
+    /**
+     * @param time a frame time, in the time base of the samples
+     * @return the translation the swiped view would have at the given time, interpolated or, for a
+     * few ms, extrapolated from the last two samples
+     */
+    public float getTranslationXAt(long time) {
+        return resampleDeltaX(time) - mSwipingSlop;
+    }
+
+    /**
+     * @param time a frame time, in the time base of the samples
+     * @return the alpha the swiped view would have at the given time
+     */
+    public float getAlphaAt(long time) {
+        return alphaFor(resampleDeltaX(time));
+    }
+
+    private float alphaFor(float deltaX) {
+        return Math.max(0f, Math.min(1f, 1f - 2f * Math.abs(deltaX) / mViewWidth));
+    }
+
+    private float resampleDeltaX(long time) {
+        if (mSampleCount < 2) {
+            return mDeltaX;
+        }
+        int last = (mSampleHead - 1 + VELOCITY_SAMPLES) % VELOCITY_SAMPLES;
+        int previous = (mSampleHead - 2 + VELOCITY_SAMPLES) % VELOCITY_SAMPLES;
+        long interval = mSampleTime[last] - mSampleTime[previous];
+        if (interval <= 0) {
+            return mDeltaX;
+        }
+        long sampleTime = time - RESAMPLE_LATENCY;
+        // never before the previous sample, never further ahead than half an interval
+        long maxTime = mSampleTime[last] + Math.min(MAX_PREDICTION, interval / 2);
+        sampleTime = Math.max(mSampleTime[previous], Math.min(maxTime, sampleTime));
+        float fraction = (float) (sampleTime - mSampleTime[previous]) / interval;
+        float x = mSampleX[previous] + (mSampleX[last] - mSampleX[previous]) * fraction;
+        return x - mDownX;
+    }
+
+    /**
+     * @return the decision of the last gesture that ended
+     */
+    public int getLastDecision() {
+        return mLastDecision;
+    }
+
+    public static boolean isDismiss(int decision) {
+        return decision == DECISION_DISMISS_LEFT || decision == DECISION_DISMISS_RIGHT;
+    }
+
+    /**
+     * Feeds a replayed sample, filtered like the listener filters its events: gestures the listener
+     * did not track are ignored, as are the samples of other pointers, and historical samples only
+     * feed the velocity estimate.
+     */
+    @Override
+    public void onSample(int action, int pointerId, float rawX, float rawY, long eventTime, boolean historical,
+                         int viewWidth, float velocityX, float velocityY) {
+        switch (action) {
+            case GestureTraceReplayer.ACTION_DOWN:
+                if (viewWidth <= 0) {
+                    mTracking = false;
+                    mReplayPointerId = -1;
+                    break;
+                }
+                mReplayPointerId = pointerId;
+                onDown(rawX, rawY, eventTime, viewWidth);
+                break;
+            case GestureTraceReplayer.ACTION_MOVE:
+                if (pointerId != mReplayPointerId) {
+                    break;
+                }
+                if (historical) {
+                    // the listener only moves the row on the events themselves
+                    addSample(rawX, rawY, eventTime);
+                } else {
+                    onMove(rawX, rawY, eventTime);
+                }
+                break;
+            case GestureTraceReplayer.ACTION_UP:
+                if (pointerId != mReplayPointerId) {
+                    break;
+                }
+                if (Float.isNaN(velocityX)) {
+                    onUp(rawX, rawY, eventTime);
+                } else {
+                    onUp(rawX, rawY, eventTime, velocityX, velocityY);
+                }
+                break;
+            case GestureTraceReplayer.ACTION_CANCEL:
+                onCancel();
+                break;
+        }
+    }
+
+    private void addSample(float x, float y, long time) {
+        mSampleX[mSampleHead] = x;
+        mSampleY[mSampleHead] = y;
+        mSampleTime[mSampleHead] = time;
+        mSampleHead = (mSampleHead + 1) % VELOCITY_SAMPLES;
+        mSampleCount = Math.min(mSampleCount + 1, VELOCITY_SAMPLES);
+    }
+
+    /**
+     * Least squares slope of the samples of the last {@link #VELOCITY_HORIZON} ms, in px/s.
+     */
+    private float estimateVelocity(float[] values, long now) {
+        float sumT = 0;
+        float sumV = 0;
+        float sumTT = 0;
+        float sumTV = 0;
+        int n = 0;
+        for (int i = 0; i < mSampleCount; i++) {
+            int index = (mSampleHead - 1 - i + VELOCITY_SAMPLES) % VELOCITY_SAMPLES;
+            long age = now - mSampleTime[index];
+            if (age > VELOCITY_HORIZON) {
+                break;
+            }
+            float t = -age / 1000f;
+            sumT += t;
+            sumV += values[index];
+            sumTT += t * t;
+            sumTV += t * values[index];
+            n++;
+        }
+        float denominator = n * sumTT - sumT * sumT;
+        if (n < 2 || denominator == 0) {
+            return 0;
+        }
+        return (n * sumTV - sumT * sumV) / denominator;
+    }
+}
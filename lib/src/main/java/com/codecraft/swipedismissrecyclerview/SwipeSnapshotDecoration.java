@@ -0,0 +1,248 @@
+/*
+ * Copyright 2014 François Blavoet
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.codecraft.swipedismissrecyclerview;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Paint;
+import android.graphics.drawable.BitmapDrawable;
+import android.graphics.drawable.Drawable;
+import android.os.Looper;
+import android.os.MessageQueue;
+import android.support.v7.widget.RecyclerView;
+import android.view.SurfaceView;
+import android.view.TextureView;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.ImageView;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Draws swiped rows from a bitmap captured at the start of the swipe, while the real rows are
+ * hidden.
+ *
+ * <p>The swiped view keeps receiving its translation and alpha, so that animations and take-overs
+ * work as usual, but it is {@link View#INVISIBLE} and this decoration draws the snapshot over the
+ * {@link RecyclerView} at the same place. The cost of each frame of the swipe then no longer depends
+ * on the content of the row. A few bitmaps are kept for reuse between swipes of rows of the same
+ * size, and are allocated ahead, when the main thread is idle, for the sizes of the rows shown, so
+ * that the start of a swipe only draws the row.</p>
+ *
+ * <p>The snapshot is drawn with {@link View#draw(Canvas)} on a software canvas, and does not follow
+ * changes of the row made while it is swiped. Rows that a software canvas cannot draw, with a
+ * {@link TextureView}, a {@link SurfaceView} or a hardware bitmap, are not captured, nor are rows
+ * that do not have overlapping rendering. A hidden row does not invalidate the
+ * {@link RecyclerView} when it moves: whoever moves a captured row must invalidate it.</p>
+ */
+class SwipeSnapshotDecoration extends RecyclerView.ItemDecoration implements MessageQueue.IdleHandler {
+
+    private static final int MAX_POOLED_BITMAPS = 3;
+
+    private final RecyclerView mRecyclerView;
+    private final Paint mPaint = new Paint(Paint.FILTER_BITMAP_FLAG);
+    private final Canvas mCanvas = new Canvas();
+    private final List<Snapshot> mSnapshots = new ArrayList<Snapshot>();
+    private final List<Bitmap> mBitmapPool = new ArrayList<Bitmap>();
+
+    private boolean mIdleHandlerQueued;
+    private boolean mPoolWarm;
+
+    private static class Snapshot {
+        final RecyclerView.ViewHolder holder;
+        final Bitmap bitmap;
+
+        Snapshot(RecyclerView.ViewHolder holder, Bitmap bitmap) {
+            this.holder = holder;
+            this.bitmap = bitmap;
+        }
+    }
+
+    SwipeSnapshotDecoration(RecyclerView recyclerView) {
+        mRecyclerView = recyclerView;
+    }
+
+    /**
+     * Captures the row of the given holder and hides it. Does nothing if the row is already captured,
+     * is empty, or cannot be drawn faithfully from a snapshot.
+     */
+    void capture(RecyclerView.ViewHolder holder) {
+        View view = holder.itemView;
+        if (indexOf(holder) >= 0 || view.getWidth() == 0 || view.getHeight() == 0
+                // its fade applies to each child on its own, which a flat snapshot cannot mimic
+                || !view.hasOverlappingRendering() || !isSoftwareDrawable(view)) {
+            return;
+        }
+        Bitmap bitmap = obtainBitmap(view.getWidth(), view.getHeight());
+        mCanvas.setBitmap(bitmap);
+        view.draw(mCanvas);
+        mCanvas.setBitmap(null);
+        mSnapshots.add(new Snapshot(holder, bitmap));
+        view.setVisibility(View.INVISIBLE);
+    }
+
+    /**
+     * @return whether the given row is hidden and drawn from a snapshot
+     */
+    boolean isCaptured(View view) {
+        for (int i = 0; i < mSnapshots.size(); i++) {
+            if (mSnapshots.get(i).holder.itemView == view) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Shows the real row of the given holder again, as it is now.
+     */
+    void release(RecyclerView.ViewHolder holder) {
+        int index = indexOf(holder);
+        if (index >= 0) {
+            release(mSnapshots.remove(index));
+        }
+    }
+
+    /**
+     * Shows all the real rows again and frees the bitmaps.
+     */
+    void releaseAll() {
+        for (int i = mSnapshots.size() - 1; i >= 0; i--) {
+            release(mSnapshots.remove(i));
+        }
+        for (Bitmap bitmap : mBitmapPool) {
+            bitmap.recycle();
+        }
+        mBitmapPool.clear();
+        if (mIdleHandlerQueued) {
+            Looper.myQueue().removeIdleHandler(this);
+            mIdleHandlerQueued = false;
+        }
+        mPoolWarm = false;
+    }
+
+    @Override
+    public boolean queueIdle() {
+        int childCount = mRecyclerView.getChildCount();
+        for (int i = 0; i < childCount && mBitmapPool.size() < MAX_POOLED_BITMAPS; i++) {
+            View child = mRecyclerView.getChildAt(i);
+            if (child.getWidth() > 0 && child.getHeight() > 0
+                    && indexOfPooled(child.getWidth(), child.getHeight()) < 0) {
+                // only one bitmap per idle callback so that we never hold the looper for long
+                mBitmapPool.add(Bitmap.createBitmap(child.getWidth(), child.getHeight(),
+                        Bitmap.Config.ARGB_8888));
+                return true;
+            }
+        }
+        mPoolWarm = true;
+        mIdleHandlerQueued = false;
+        return false;
+    }
+
+    @Override
+    public void onDrawOver(Canvas c, RecyclerView parent, RecyclerView.State state) {
+        if (!mPoolWarm && !mIdleHandlerQueued) {
+            // the rows are laid out, their sizes are known
+            mIdleHandlerQueued = true;
+            Looper.myQueue().addIdleHandler(this);
+        }
+        if (mSnapshots.isEmpty()) {
+            return;
+        }
+        for (int i = 0; i < mSnapshots.size(); i++) {
+            Snapshot snapshot = mSnapshots.get(i);
+            View view = snapshot.holder.itemView;
+            mPaint.setAlpha((int) (view.getAlpha() * 255));
+            c.drawBitmap(snapshot.bitmap, view.getLeft() + view.getTranslationX(),
+                    view.getTop() + view.getTranslationY(), mPaint);
+        }
+    }
+
+    private void release(Snapshot snapshot) {
+        snapshot.holder.itemView.setVisibility(View.VISIBLE);
+        if (mBitmapPool.size() < MAX_POOLED_BITMAPS) {
+            mBitmapPool.add(snapshot.bitmap);
+        } else {
+            snapshot.bitmap.recycle();
+        }
+    }
+
+    private Bitmap obtainBitmap(int width, int height) {
+        int index = indexOfPooled(width, height);
+        if (index >= 0) {
+            Bitmap bitmap = mBitmapPool.remove(index);
+            bitmap.eraseColor(Color.TRANSPARENT);
+            return bitmap;
+        }
+        // rows of a new size are shown: warm the pool for them before the next swipe
+        mPoolWarm = false;
+        return Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_8888);
+    }
+
+    private int indexOfPooled(int width, int height) {
+        for (int i = mBitmapPool.size() - 1; i >= 0; i--) {
+            Bitmap bitmap = mBitmapPool.get(i);
+            if (bitmap.getWidth() == width && bitmap.getHeight() == height) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @return whether {@link View#draw(Canvas)} on a software canvas renders the given view as it is
+     * shown, rather than leaving holes where content only exists on the GPU
+     */
+    private static boolean isSoftwareDrawable(View view) {
+        if (view instanceof TextureView || view instanceof SurfaceView) {
+            return false;
+        }
+        if (view instanceof ImageView && isHardwareBitmap(((ImageView) view).getDrawable())) {
+            return false;
+        }
+        if (view instanceof ViewGroup) {
+            ViewGroup group = (ViewGroup) view;
+            for (int i = 0; i < group.getChildCount(); i++) {
+                if (!isSoftwareDrawable(group.getChildAt(i))) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    private static boolean isHardwareBitmap(Drawable drawable) {
+        if (!(drawable instanceof BitmapDrawable)) {
+            return false;
+        }
+        Bitmap bitmap = ((BitmapDrawable) drawable).getBitmap();
+        // Bitmap.Config.HARDWARE only exists from API 26, above the SDK this library is built with
+        return bitmap != null && bitmap.getConfig() != null
+                && "HARDWARE".equals(bitmap.getConfig().name());
+    }
+
+    private int indexOf(RecyclerView.ViewHolder holder) {
+        for (int i = 0; i < mSnapshots.size(); i++) {
+            if (mSnapshots.get(i).holder == holder) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,187 @@
+/*
+ * Copyright 2014 François Blavoet
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.codecraft.swipedismissrecyclerview;
+
+/**
+ * Counts how swipe gestures end and how long they take, without allocating anything per gesture.
+ *
+ * <p>Set an instance on a swipe listener and export it periodically, for instance:</p>
+ *
+ * <pre>
+ * SwipeStatistics statistics = new SwipeStatistics();
+ * SwipeStatistics exported = new SwipeStatistics();
+ * touchListener.setStatistics(statistics);
+ * ...
+ * statistics.snapshotInto(exported, true);
+ * analytics.log("swipe_dismissed", exported.getDismissed());
+ * analytics.log("swipe_lock_p90", exported.getDownToLock().getValueAtPercentile(90));
+ * </pre>
+ *
+ * <p>All methods must be called from the thread the gestures are handled on, normally the main
+ * thread.</p>
+ */
+public final class SwipeStatistics {
+
+    // Counters
+    private long mTouches;
+    private long mSwipesStarted;
+    private long mSwipesAborted;
+    private long mFlingDismissed;
+    private long mDistanceDismissed;
+
+    // Histograms
+    private final LogLinearHistogram mGestureDuration = new LogLinearHistogram();
+    private final LogLinearHistogram mDownToLock = new LogLinearHistogram();
+    private final LogLinearHistogram mFlingCatch = new LogLinearHistogram();
+
+    /**
+     * @return the number of touches on a dismissable view, swiped or not
+     */
+    public long getTouches() {
+        return mTouches;
+    }
+
+    /**
+     * @return the number of touches that turned into a swipe
+     */
+    public long getSwipesStarted() {
+        return mSwipesStarted;
+    }
+
+    /**
+     * @return the number of swipes after which the view was put back
+     */
+    public long getSwipesAborted() {
+        return mSwipesAborted;
+    }
+
+    /**
+     * @return the number of swipes that dismissed their view
+     */
+    public long getDismissed() {
+        return mFlingDismissed + mDistanceDismissed;
+    }
+
+    /**
+     * @return the number of views dismissed by a fling shorter than half of their width
+     */
+    public long getFlingDismissed() {
+        return mFlingDismissed;
+    }
+
+    /**
+     * @return the number of views dismissed by being dragged past half of their width
+     */
+    public long getDistanceDismissed() {
+        return mDistanceDismissed;
+    }
+
+    /**
+     * @return the time, in ms, from the down event to the release of the swipes that ended with an
+     * up event
+     */
+    public LogLinearHistogram getGestureDuration() {
+        return mGestureDuration;
+    }
+
+    /**
+     * @return the time, in ms, from the down event to the move that turned the touch into a swipe
+     */
+    public LogLinearHistogram getDownToLock() {
+        return mDownToLock;
+    }
+
+    /**
+     * @return the time, in ms, from a down event that caught a settling fling to the moment the list
+     * was stopped and the touched view found. Only recorded by listeners that catch flings.
+     */
+    public LogLinearHistogram getFlingCatch() {
+        return mFlingCatch;
+    }
+
+    /**
+     * Copies the current values into another instance, replacing its own, and optionally starts
+     * counting from zero again.
+     *
+     * @param target the instance to copy into, typically reused from one export to the next
+     * @param reset  whether to reset this instance once copied
+     */
+    public void snapshotInto(SwipeStatistics target, boolean reset) {
+        target.mTouches = mTouches;
+        target.mSwipesStarted = mSwipesStarted;
+        target.mSwipesAborted = mSwipesAborted;
+        target.mFlingDismissed = mFlingDismissed;
+        target.mDistanceDismissed = mDistanceDismissed;
+        mGestureDuration.copyInto(target.mGestureDuration);
+        mDownToLock.copyInto(target.mDownToLock);
+        mFlingCatch.copyInto(target.mFlingCatch);
+        if (reset) {
+            reset();
+        }
+    }
+
+    public void reset() {
+        mTouches = 0;
+        mSwipesStarted = 0;
+        mSwipesAborted = 0;
+        mFlingDismissed = 0;
+        mDistanceDismissed = 0;
+        mGestureDuration.reset();
+        mDownToLock.reset();
+        mFlingCatch.reset();
+    }
+
+    void onTouch() {
+        mTouches++;
+    }
+
+    /**
+     * @param downToLock the time from the down event, in ms, or -1 if the view was grabbed while
+     *                   it was already translated
+     */
+    void onSwipeStarted(long downToLock) {
+        mSwipesStarted++;
+        if (downToLock >= 0) {
+            mDownToLock.record(downToLock);
+        }
+    }
+
+    /**
+     * @param latency the time from the down event, in ms
+     */
+    void onFlingCaught(long latency) {
+        mFlingCatch.record(latency);
+    }
+
+    /**
+     * @param duration the time from the down event, in ms, or -1 if the gesture was cancelled
+     */
+    void onSwipeEnded(int decision, boolean fling, long duration) {
+        if (SwipeGestureCore.isDismiss(decision)) {
+            if (fling) {
+                mFlingDismissed++;
+            } else {
+                mDistanceDismissed++;
+            }
+        } else {
+            mSwipesAborted++;
+        }
+        if (duration >= 0) {
+            mGestureDuration.record(duration);
+        }
+    }
+}
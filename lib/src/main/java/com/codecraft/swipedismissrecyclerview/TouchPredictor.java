@@ -0,0 +1,127 @@
+/*
+ * Copyright 2014 François Blavoet
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.codecraft.swipedismissrecyclerview;
+
+/**
+ * Extrapolates a finger position along one axis a little into the future, to make up for the time
+ * between a touch sample and the display of the frame drawn from it.
+ *
+ * <p>The prediction follows the velocity of the last samples. To limit overshoot, it only keeps
+ * the part of the velocity that the least squares estimate and the last two samples agree on, so
+ * that a finger slowing down or turning back is not extrapolated past where it stops, and the
+ * offset is clamped. No prediction is made when the samples are too few or too old.</p>
+ *
+ * <p>This class does not depend on Android.</p>
+ */
+public final class TouchPredictor {
+
+    private static final int SAMPLES = 6;
+    // Older samples describe a different motion
+    private static final long VELOCITY_HORIZON = 40;
+
+    // Configuration
+    private final long mPredictionTime;
+    private final float mMaxOffset;
+
+    // Recent samples
+    private final float[] mSampleX = new float[SAMPLES];
+    private final long[] mSampleTime = new long[SAMPLES];
+    private int mSampleHead;
+    private int mSampleCount;
+
+    /**
+     * @param predictionTime how far ahead of the given time to predict, in ms
+     * @param maxOffset      the largest distance, in px, between the prediction and the last sample
+     */
+    public TouchPredictor(long predictionTime, float maxOffset) {
+        if (predictionTime < 0 || maxOffset < 0) {
+            throw new IllegalArgumentException("invalid prediction");
+        }
+        mPredictionTime = predictionTime;
+        mMaxOffset = maxOffset;
+    }
+
+    public void reset() {
+        mSampleCount = 0;
+    }
+
+    public void addSample(float x, long time) {
+        mSampleX[mSampleHead] = x;
+        mSampleTime[mSampleHead] = time;
+        mSampleHead = (mSampleHead + 1) % SAMPLES;
+        mSampleCount = Math.min(mSampleCount + 1, SAMPLES);
+    }
+
+    /**
+     * @param time the time the prediction is for, typically the event or frame time, in ms
+     * @return the distance, in px, to add to the last sample to get where the finger is predicted to
+     * be {@code predictionTime} ms after the given time
+     */
+    public float getOffset(long time) {
+        if (mSampleCount < 3) {
+            return 0;
+        }
+        int last = (mSampleHead - 1 + SAMPLES) % SAMPLES;
+        int previous = (mSampleHead - 2 + SAMPLES) % SAMPLES;
+        long lastTime = mSampleTime[last];
+        long age = time - lastTime;
+        if (age > VELOCITY_HORIZON || lastTime == mSampleTime[previous]) {
+            // the finger stopped sending samples, or they cannot be told apart
+            return 0;
+        }
+
+        float instantVelocity = (mSampleX[last] - mSampleX[previous]) / (lastTime - mSampleTime[previous]);
+        float fittedVelocity = fitVelocity(lastTime);
+        if (instantVelocity * fittedVelocity <= 0) {
+            return 0;
+        }
+        float velocity = Math.abs(instantVelocity) < Math.abs(fittedVelocity) ? instantVelocity : fittedVelocity;
+        float offset = velocity * (Math.max(0, age) + mPredictionTime);
+        return Math.max(-mMaxOffset, Math.min(mMaxOffset, offset));
+    }
+
+    /**
+     * Least squares slope of the samples of the last {@link #VELOCITY_HORIZON} ms, in px/ms.
+     */
+    private float fitVelocity(long now) {
+        float sumT = 0;
+        float sumX = 0;
+        float sumTT = 0;
+        float sumTX = 0;
+        int n = 0;
+        for (int i = 0; i < mSampleCount; i++) {
+            int index = (mSampleHead - 1 - i + SAMPLES) % SAMPLES;
+            long age = now - mSampleTime[index];
+            if (age > VELOCITY_HORIZON) {
+                break;
+            }
+            float t = -age;
+            // relative to the last sample, to keep the sums small
+            float x = mSampleX[index] - mSampleX[(mSampleHead - 1 + SAMPLES) % SAMPLES];
+            sumT += t;
+            sumX += x;
+            sumTT += t * t;
+            sumTX += t * x;
+            n++;
+        }
+        float denominator = n * sumTT - sumT * sumT;
+        if (n < 2 || denominator == 0) {
+            return 0;
+        }
+        return (n * sumTX - sumT * sumX) / denominator;
+    }
+}
@@ -0,0 +1,170 @@
+/*
+ * Copyright 2014 François Blavoet
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.codecraft.swipedismissrecyclerview;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+public class AdapterUpdateCoordinatorTest {
+
+    /**
+     * Records the notifications instead of sending them to an adapter.
+     */
+    private static class RecordingCoordinator extends AdapterUpdateCoordinator<String> {
+        final List<String> mNotifications = new ArrayList<String>();
+
+        RecordingCoordinator(List<String> items) {
+            super(null, items);
+        }
+
+        @Override
+        void notifyRun(int op, int positionStart, int itemCount) {
+            String name = op == OP_INSERT ? "insert" : op == OP_UPDATE ? "update" : "remove";
+            mNotifications.add(name + " " + positionStart + "+" + itemCount);
+        }
+    }
+
+    private List<String> mItems;
+    private RecordingCoordinator mCoordinator;
+
+    @Before
+    public void setUp() {
+        mItems = new ArrayList<String>(Arrays.asList("a", "b", "c", "d", "e", "f", "g", "h"));
+        mCoordinator = new RecordingCoordinator(mItems);
+    }
+
+    private void assertNotified(String... expected) {
+        assertEquals(Arrays.asList(expected), mCoordinator.mNotifications);
+    }
+
+    @Test
+    public void adjacentRemovalsAreCoalesced() {
+        mCoordinator.postRemove("c");
+        mCoordinator.postRemove("d");
+        mCoordinator.postRemove("e");
+        mCoordinator.flush();
+        assertNotified("remove 2+3");
+        assertEquals(Arrays.asList("a", "b", "f", "g", "h"), mItems);
+    }
+
+    @Test
+    public void adjacentRemovalsInReverseOrderAreCoalesced() {
+        mCoordinator.postRemove("e");
+        mCoordinator.postRemove("d");
+        mCoordinator.postRemove("c");
+        mCoordinator.flush();
+        assertNotified("remove 2+3");
+    }
+
+    @Test
+    public void nonAdjacentRemovalsAreNotifiedApart() {
+        mCoordinator.postRemove("b");
+        mCoordinator.postRemove("e");
+        mCoordinator.postRemove("f");
+        mCoordinator.flush();
+        // e is at 3 once b is gone
+        assertNotified("remove 1+1", "remove 3+2");
+        assertEquals(Arrays.asList("a", "c", "d", "g", "h"), mItems);
+    }
+
+    @Test
+    public void removalsBecomeAdjacentOnceTheItemsBetweenAreGone() {
+        mCoordinator.postRemove("b");
+        mCoordinator.postRemove("d");
+        mCoordinator.postRemove("c");
+        mCoordinator.flush();
+        // c is right before d once b is gone
+        assertNotified("remove 1+1", "remove 1+2");
+        assertEquals(Arrays.asList("a", "e", "f", "g", "h"), mItems);
+    }
+
+    @Test
+    public void otherChangesBreakARunOfRemovals() {
+        mCoordinator.postRemove("c");
+        mCoordinator.postUpdate("d");
+        mCoordinator.postRemove("d");
+        mCoordinator.flush();
+        assertNotified("remove 2+1", "update 2+1", "remove 2+1");
+    }
+
+    @Test
+    public void missingItemsAreIgnored() {
+        mCoordinator.postRemove("c");
+        mCoordinator.postRemove("z");
+        mCoordinator.postRemove("d");
+        mCoordinator.flush();
+        assertNotified("remove 2+2");
+    }
+
+    @Test
+    public void itemsAreRemovedByEquality() {
+        mCoordinator.postRemove(new String("c"));
+        mCoordinator.flush();
+        assertEquals(Arrays.asList("a", "b", "d", "e", "f", "g", "h"), mItems);
+    }
+
+    @Test
+    public void eachFlushNotifiesItsOwnChanges() {
+        mCoordinator.postRemove("c");
+        mCoordinator.flush();
+        mCoordinator.postRemove("d");
+        mCoordinator.flush();
+        mCoordinator.flush();
+        assertNotified("remove 2+1", "remove 2+1");
+    }
+
+    @Test
+    public void removalsFromSeveralProducersAreAllApplied() throws InterruptedException {
+        final int producers = 4;
+        final int itemsPerProducer = 250;
+        mItems.clear();
+        for (int i = 0; i < producers * itemsPerProducer; i++) {
+            mItems.add("item" + i);
+        }
+        Thread[] threads = new Thread[producers];
+        for (int p = 0; p < producers; p++) {
+            final int producer = p;
+            threads[p] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    // the producers remove interleaved items, rarely adjacent ones
+                    for (int i = 0; i < itemsPerProducer; i++) {
+                        mCoordinator.postRemove("item" + (i * producers + producer));
+                    }
+                }
+            });
+            threads[p].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        mCoordinator.flush();
+
+        assertEquals(0, mItems.size());
+        int removed = 0;
+        for (String notification : mCoordinator.mNotifications) {
+            removed += Integer.parseInt(notification.substring(notification.indexOf('+') + 1));
+        }
+        assertEquals(producers * itemsPerProducer, removed);
+    }
+}
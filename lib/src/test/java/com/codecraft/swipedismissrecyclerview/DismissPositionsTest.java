@@ -0,0 +1,83 @@
+/*
+ * Copyright 2014 François Blavoet
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.codecraft.swipedismissrecyclerview;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class DismissPositionsTest {
+
+    private static DismissPositions of(int... positions) {
+        return new DismissPositions(positions, positions.length);
+    }
+
+    private static void assertPositions(DismissPositions positions, int... expected) {
+        assertEquals(expected.length, positions.size());
+        for (int i = 0; i < expected.length; i++) {
+            assertEquals(expected[i], positions.get(i));
+        }
+    }
+
+    @Test
+    public void removalBeforeShiftsPositions() {
+        DismissPositions positions = of(2, 5, 9);
+        positions.onItemRangeRemoved(0, 2);
+        assertPositions(positions, 0, 3, 7);
+    }
+
+    @Test
+    public void removedPositionsAreDropped() {
+        DismissPositions positions = of(2, 5, 6, 9);
+        positions.onItemRangeRemoved(5, 2);
+        assertPositions(positions, 2, 7);
+    }
+
+    @Test
+    public void insertionShiftsFollowingPositions() {
+        DismissPositions positions = of(2, 5, 9);
+        positions.onItemRangeInserted(5, 3);
+        assertPositions(positions, 2, 8, 12);
+    }
+
+    @Test
+    public void moveDownShiftsPositionsInBetween() {
+        DismissPositions positions = of(1, 3, 6);
+        // the item at 1 moves to 4: 2..4 move up by one
+        positions.onItemRangeMoved(1, 4, 1);
+        assertPositions(positions, 2, 4, 6);
+    }
+
+    @Test
+    public void moveUpShiftsPositionsInBetween() {
+        DismissPositions positions = of(1, 3, 6);
+        positions.onItemRangeMoved(6, 0, 1);
+        assertPositions(positions, 0, 2, 4);
+    }
+
+    @Test
+    public void removeAndContains() {
+        DismissPositions positions = of(2, 5, 9);
+        assertTrue(positions.contains(5));
+        positions.remove(5);
+        positions.remove(7);
+        assertFalse(positions.contains(5));
+        assertPositions(positions, 2, 9);
+    }
+}
@@ -0,0 +1,109 @@
+/*
+ * Copyright 2014 François Blavoet
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.codecraft.swipedismissrecyclerview;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class LogLinearHistogramTest {
+
+    @Test
+    public void smallValuesHaveTheirOwnBucket() {
+        for (int value = 0; value < 16; value++) {
+            assertEquals(value, LogLinearHistogram.bucketOf(value));
+            assertEquals(value, LogLinearHistogram.upperBoundOf(value));
+        }
+    }
+
+    @Test
+    public void bucketsWidenAtEachPowerOfTwo() {
+        assertEquals(16, LogLinearHistogram.bucketOf(16));
+        assertEquals(31, LogLinearHistogram.bucketOf(31));
+        assertEquals(31, LogLinearHistogram.upperBoundOf(31));
+        // from 32 on, buckets are two wide
+        assertEquals(32, LogLinearHistogram.bucketOf(32));
+        assertEquals(32, LogLinearHistogram.bucketOf(33));
+        assertEquals(33, LogLinearHistogram.bucketOf(34));
+        assertEquals(33, LogLinearHistogram.upperBoundOf(32));
+        // from 64 on, four wide
+        assertEquals(48, LogLinearHistogram.bucketOf(64));
+        assertEquals(48, LogLinearHistogram.bucketOf(67));
+        assertEquals(49, LogLinearHistogram.bucketOf(68));
+        assertEquals(67, LogLinearHistogram.upperBoundOf(48));
+    }
+
+    @Test
+    public void bucketsAreContiguous() {
+        int last = LogLinearHistogram.bucketOf(LogLinearHistogram.MAX_VALUE);
+        assertEquals(LogLinearHistogram.MAX_VALUE, LogLinearHistogram.upperBoundOf(last));
+        for (int bucket = 0; bucket < last; bucket++) {
+            long upperBound = LogLinearHistogram.upperBoundOf(bucket);
+            assertEquals(bucket, LogLinearHistogram.bucketOf(upperBound));
+            assertEquals(bucket + 1, LogLinearHistogram.bucketOf(upperBound + 1));
+        }
+    }
+
+    @Test
+    public void upperBoundsAreWithinASixteenth() {
+        for (long value = 16; value <= LogLinearHistogram.MAX_VALUE; value = value * 3 / 2 + 1) {
+            long upperBound = LogLinearHistogram.upperBoundOf(LogLinearHistogram.bucketOf(value));
+            assertTrue(upperBound >= value);
+            assertTrue(upperBound - value <= value / 16);
+        }
+    }
+
+    @Test
+    public void outOfRangeValuesAreClamped() {
+        LogLinearHistogram histogram = new LogLinearHistogram();
+        histogram.record(-5);
+        histogram.record(LogLinearHistogram.MAX_VALUE + 100);
+        assertEquals(2, histogram.getCount());
+        assertEquals(0, histogram.getMin());
+        assertEquals(LogLinearHistogram.MAX_VALUE, histogram.getMax());
+        assertEquals(LogLinearHistogram.MAX_VALUE, histogram.getValueAtPercentile(100));
+    }
+
+    @Test
+    public void percentilesReportBucketUpperBounds() {
+        LogLinearHistogram histogram = new LogLinearHistogram();
+        assertEquals(0, histogram.getValueAtPercentile(50));
+        for (int value = 1; value <= 100; value++) {
+            histogram.record(value);
+        }
+        assertEquals(1, histogram.getValueAtPercentile(0));
+        assertEquals(10, histogram.getValueAtPercentile(10));
+        // 50 shares its bucket with 51
+        assertEquals(51, histogram.getValueAtPercentile(50));
+        // the bucket of 100 goes up to 103, but no recorded value is above 100
+        assertEquals(100, histogram.getValueAtPercentile(100));
+        assertEquals(50.5, histogram.getMean(), 0);
+    }
+
+    @Test
+    public void resetForgetsEverything() {
+        LogLinearHistogram histogram = new LogLinearHistogram();
+        histogram.record(40);
+        histogram.reset();
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getMax());
+        histogram.record(3);
+        assertEquals(3, histogram.getMin());
+        assertEquals(3, histogram.getValueAtPercentile(100));
+    }
+}
@@ -0,0 +1,111 @@
+/*
+ * Copyright 2014 François Blavoet
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.codecraft.swipedismissrecyclerview;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class StableIdStatesTest {
+
+    private static final byte NO = 1;
+    private static final byte YES = 2;
+
+    // 1, 17 and 33 share a slot in the initial table of 16, 1 and 33 still do once it has 32
+    private static StableIdStates withCollidingIds() {
+        StableIdStates states = new StableIdStates();
+        states.put(1, YES);
+        states.put(17, YES);
+        states.put(33, YES);
+        return states;
+    }
+
+    @Test
+    public void tombstoneKeepsTheProbeChain() {
+        StableIdStates states = withCollidingIds();
+        states.put(17, StableIdStates.UNKNOWN);
+        assertEquals(StableIdStates.UNKNOWN, states.get(17));
+        assertEquals(YES, states.get(33));
+        assertEquals(3, states.size());
+    }
+
+    @Test
+    public void tombstoneSlotIsReused() {
+        StableIdStates states = withCollidingIds();
+        states.put(17, StableIdStates.UNKNOWN);
+        states.put(17, NO);
+        assertEquals(NO, states.get(17));
+        assertEquals(3, states.size());
+    }
+
+    @Test
+    public void unknownStateOfAnAbsentIdIsNotStored() {
+        StableIdStates states = new StableIdStates();
+        states.put(5, StableIdStates.UNKNOWN);
+        assertEquals(0, states.size());
+    }
+
+    @Test
+    public void resizeDropsTombstonesAndTheyCanBeReused() {
+        StableIdStates states = withCollidingIds();
+        states.put(17, StableIdStates.UNKNOWN);
+        // the tenth id makes the table grow past three quarters of 16 slots
+        for (long id = 2; id < 12; id++) {
+            states.put(id, NO);
+        }
+        assertEquals(12, states.size());
+        assertEquals(StableIdStates.UNKNOWN, states.get(17));
+        assertEquals(YES, states.get(1));
+        assertEquals(YES, states.get(33));
+        for (long id = 2; id < 12; id++) {
+            assertEquals(NO, states.get(id));
+        }
+
+        states.put(17, NO);
+        assertEquals(NO, states.get(17));
+        assertEquals(13, states.size());
+
+        // a tombstone of the grown table is reused too, and keeps the chain of its colliding id
+        states.put(1, StableIdStates.UNKNOWN);
+        assertEquals(YES, states.get(33));
+        states.put(1, NO);
+        assertEquals(NO, states.get(1));
+        assertEquals(13, states.size());
+    }
+
+    @Test
+    public void zeroIdIsKeptAside() {
+        StableIdStates states = new StableIdStates();
+        states.put(0, YES);
+        assertEquals(YES, states.get(0));
+        assertEquals(0, states.size());
+        states.put(0, StableIdStates.UNKNOWN);
+        assertEquals(StableIdStates.UNKNOWN, states.get(0));
+    }
+
+    @Test
+    public void clearForgetsEverything() {
+        StableIdStates states = withCollidingIds();
+        states.put(0, NO);
+        states.clear();
+        assertEquals(0, states.size());
+        assertEquals(StableIdStates.UNKNOWN, states.get(0));
+        assertEquals(StableIdStates.UNKNOWN, states.get(33));
+        states.put(33, NO);
+        assertEquals(NO, states.get(33));
+    }
+}
@@ -0,0 +1,189 @@
+/*
+ * Copyright 2014 François Blavoet
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.codecraft.swipedismissrecyclerview;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class SwipeGestureCoreTest {
+
+    private static final int SLOP = 16;
+    private static final int MIN_FLING_VELOCITY = 100;
+    private static final int MAX_FLING_VELOCITY = 8000;
+    private static final int WIDTH = 1000;
+
+    private SwipeGestureCore mCore;
+
+    @Before
+    public void setUp() {
+        mCore = new SwipeGestureCore(SLOP, MIN_FLING_VELOCITY, MAX_FLING_VELOCITY);
+    }
+
+    @Test
+    public void moveWithinSlopIsNotASwipe() {
+        mCore.onDown(100, 100, 0, WIDTH);
+        assertEquals(SwipeGestureCore.MOVE_IDLE, mCore.onMove(100 + SLOP, 100, 10));
+        assertFalse(mCore.isSwiping());
+        assertEquals(SwipeGestureCore.DECISION_NONE, mCore.onUp(100 + SLOP, 100, 20));
+    }
+
+    @Test
+    public void movePastSlopStartsSwipe() {
+        mCore.onDown(100, 100, 0, WIDTH);
+        assertEquals(SwipeGestureCore.MOVE_SWIPE_STARTED, mCore.onMove(101 + SLOP, 100, 10));
+        assertEquals(SwipeGestureCore.MOVE_SWIPING, mCore.onMove(150, 100, 20));
+        assertTrue(mCore.isSwiping());
+    }
+
+    @Test
+    public void mostlyVerticalMoveIsNotASwipe() {
+        mCore.onDown(100, 100, 0, WIDTH);
+        assertEquals(SwipeGestureCore.MOVE_IDLE, mCore.onMove(100 + 2 * SLOP, 100 + 2 * SLOP, 10));
+        assertFalse(mCore.isSwiping());
+    }
+
+    @Test
+    public void dragPastHalfTheWidthDismisses() {
+        mCore.onDown(100, 100, 0, WIDTH);
+        mCore.onMove(200, 100, 100);
+        mCore.onMove(-450, 100, 1000);
+        assertEquals(SwipeGestureCore.DECISION_DISMISS_LEFT, mCore.onUp(-450, 100, 1000, 0, 0));
+    }
+
+    @Test
+    public void slowShortDragCancels() {
+        mCore.onDown(100, 100, 0, WIDTH);
+        mCore.onMove(140, 100, 500);
+        assertEquals(SwipeGestureCore.DECISION_CANCEL, mCore.onUp(140, 100, 1000, 10, 0));
+    }
+
+    @Test
+    public void flingInTheDragDirectionDismisses() {
+        mCore.onDown(100, 100, 0, WIDTH);
+        mCore.onMove(140, 100, 20);
+        assertEquals(SwipeGestureCore.DECISION_DISMISS_RIGHT, mCore.onUp(160, 100, 30, 2000, 0));
+    }
+
+    @Test
+    public void flingAgainstTheDragDirectionCancels() {
+        mCore.onDown(100, 100, 0, WIDTH);
+        mCore.onMove(140, 100, 20);
+        assertEquals(SwipeGestureCore.DECISION_CANCEL, mCore.onUp(140, 100, 30, -2000, 0));
+    }
+
+    @Test
+    public void replayUsesRecordedWidthAndVelocity() throws IOException {
+        TraceBuilder trace = new TraceBuilder();
+        // a slow 40px drag: a cancel on a 1000px row
+        trace.add(GestureTraceReplayer.ACTION_DOWN, 0, 100, 0, WIDTH, Float.NaN);
+        trace.add(GestureTraceReplayer.ACTION_MOVE, 0, 140, 500, 0, Float.NaN);
+        trace.add(GestureTraceReplayer.ACTION_UP, 0, 140, 1000, 0, 10);
+        GestureTraceReplayer.read(trace.toStream()).replay(mCore);
+        assertEquals(SwipeGestureCore.DECISION_CANCEL, mCore.getLastDecision());
+
+        trace = new TraceBuilder();
+        // the same drag released with a fling velocity
+        trace.add(GestureTraceReplayer.ACTION_DOWN, 0, 100, 0, WIDTH, Float.NaN);
+        trace.add(GestureTraceReplayer.ACTION_MOVE, 0, 140, 500, 0, Float.NaN);
+        trace.add(GestureTraceReplayer.ACTION_UP, 0, 140, 1000, 0, 2000);
+        GestureTraceReplayer.read(trace.toStream()).replay(mCore);
+        assertEquals(SwipeGestureCore.DECISION_DISMISS_RIGHT, mCore.getLastDecision());
+    }
+
+    @Test
+    public void replayIgnoresUntrackedGesturesAndOtherPointers() throws IOException {
+        TraceBuilder trace = new TraceBuilder();
+        trace.add(GestureTraceReplayer.ACTION_DOWN, 0, 100, 0, 0, Float.NaN);
+        trace.add(GestureTraceReplayer.ACTION_MOVE, 0, 900, 100, 0, Float.NaN);
+        GestureTraceReplayer.read(trace.toStream()).replay(mCore);
+        assertFalse(mCore.isTracking());
+
+        trace = new TraceBuilder();
+        trace.add(GestureTraceReplayer.ACTION_DOWN, 0, 100, 0, WIDTH, Float.NaN);
+        trace.add(GestureTraceReplayer.ACTION_MOVE, 1, 900, 100, 0, Float.NaN);
+        GestureTraceReplayer.read(trace.toStream()).replay(mCore);
+        assertTrue(mCore.isTracking());
+        assertFalse(mCore.isSwiping());
+    }
+
+    @Test
+    public void replayReadsWhatTheFormatWrites() throws IOException {
+        TraceBuilder trace = new TraceBuilder();
+        trace.add(GestureTraceReplayer.ACTION_DOWN, 3, 100, 0, WIDTH, Float.NaN);
+        trace.add(GestureTraceReplayer.ACTION_MOVE | GestureTraceReplayer.FLAG_HISTORICAL, 3, 120, 8, 0, Float.NaN);
+        trace.add(GestureTraceReplayer.ACTION_UP, 3, 140, 16, 0, 2000);
+        final StringBuilder replayed = new StringBuilder();
+        GestureTraceReplayer.read(trace.toStream()).replay(new GestureTraceReplayer.Target() {
+            @Override
+            public void onSample(int action, int pointerId, float rawX, float rawY, long eventTime,
+                                 boolean historical, int viewWidth, float velocityX, float velocityY) {
+                replayed.append(action).append(' ').append(pointerId).append(' ').append(rawX).append(' ')
+                        .append(rawY).append(' ').append(eventTime).append(' ').append(historical).append(' ')
+                        .append(viewWidth).append(' ').append(velocityX).append(' ').append(velocityY).append('\n');
+            }
+        });
+        assertEquals("0 3 100.0 100.0 5000 false 1000 NaN NaN\n"
+                + "2 3 120.0 100.0 5008 true 0 NaN NaN\n"
+                + "1 3 140.0 100.0 5016 false 0 2000.0 0.0\n", replayed.toString());
+    }
+
+    /**
+     * Writes traces with {@link GestureTraceFormat}, as {@link GestureTraceRecorder} does: recording
+     * itself needs MotionEvents.
+     */
+    private static final class TraceBuilder {
+        private static final int CAPACITY = 16;
+        private static final long BASE_TIME = 5000;
+
+        private final long[] mTimes = new long[CAPACITY];
+        private final byte[] mActions = new byte[CAPACITY];
+        private final byte[] mPointerIds = new byte[CAPACITY];
+        private final float[] mRawX = new float[CAPACITY];
+        private final float[] mRawY = new float[CAPACITY];
+        private final int[] mViewWidths = new int[CAPACITY];
+        private final float[] mVelocityX = new float[CAPACITY];
+        private final float[] mVelocityY = new float[CAPACITY];
+        private int mCount;
+
+        void add(int action, int pointerId, float x, long time, int viewWidth, float velocityX) {
+            mActions[mCount] = (byte) action;
+            mPointerIds[mCount] = (byte) pointerId;
+            mTimes[mCount] = BASE_TIME + time;
+            mRawX[mCount] = x;
+            mRawY[mCount] = 100;
+            mViewWidths[mCount] = viewWidth;
+            mVelocityX[mCount] = velocityX;
+            mVelocityY[mCount] = Float.isNaN(velocityX) ? Float.NaN : 0;
+            mCount++;
+        }
+
+        ByteArrayInputStream toStream() throws IOException {
+            ByteArrayOutputStream trace = new ByteArrayOutputStream();
+            GestureTraceFormat.write(trace, mCount, mTimes, mActions, mPointerIds, mRawX, mRawY, mViewWidths,
+                    mVelocityX, mVelocityY);
+            return new ByteArrayInputStream(trace.toByteArray());
+        }
+    }
+}
@@ -0,0 +1,95 @@
+/*
+ * Copyright 2014 François Blavoet
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.codecraft.swipedismissrecyclerview;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class TouchPredictorTest {
+
+    private static final float DELTA = 0.01f;
+
+    /**
+     * Adds samples 8 ms apart, starting at time 0.
+     */
+    private static TouchPredictor predictorWith(long predictionTime, float maxOffset, float... xs) {
+        TouchPredictor predictor = new TouchPredictor(predictionTime, maxOffset);
+        for (int i = 0; i < xs.length; i++) {
+            predictor.addSample(xs[i], i * 8);
+        }
+        return predictor;
+    }
+
+    @Test
+    public void tooFewSamplesPredictNothing() {
+        TouchPredictor predictor = predictorWith(16, 100, 0, 8);
+        assertEquals(0, predictor.getOffset(8), 0);
+    }
+
+    @Test
+    public void steadyMotionIsExtrapolated() {
+        TouchPredictor predictor = predictorWith(16, 100, 0, 8, 16, 24);
+        // 1 px/ms, 16 ms ahead
+        assertEquals(16, predictor.getOffset(24), DELTA);
+        // the time elapsed since the last sample is added to the prediction time
+        assertEquals(22, predictor.getOffset(30), DELTA);
+    }
+
+    @Test
+    public void offsetIsClamped() {
+        assertEquals(10, predictorWith(16, 10, 0, 8, 16, 24).getOffset(24), 0);
+        assertEquals(-10, predictorWith(16, 10, 24, 16, 8, 0).getOffset(24), 0);
+    }
+
+    @Test
+    public void slowingDownUsesTheSlowerVelocity() {
+        // 2 px/ms, then 0.5 px/ms over the last interval
+        TouchPredictor predictor = predictorWith(16, 100, 0, 16, 32, 36);
+        assertEquals(8, predictor.getOffset(24), DELTA);
+    }
+
+    @Test
+    public void turningBackPredictsNothing() {
+        TouchPredictor predictor = predictorWith(16, 100, 0, 8, 16, 12);
+        assertEquals(0, predictor.getOffset(24), 0);
+    }
+
+    @Test
+    public void staleSamplesPredictNothing() {
+        TouchPredictor predictor = predictorWith(16, 100, 0, 8, 16, 24);
+        assertEquals(0, predictor.getOffset(24 + 41), 0);
+    }
+
+    @Test
+    public void samplesAtTheSameTimePredictNothing() {
+        TouchPredictor predictor = predictorWith(16, 100, 0, 8, 16);
+        predictor.addSample(20, 16);
+        assertEquals(0, predictor.getOffset(16), 0);
+    }
+
+    @Test
+    public void resetForgetsTheSamples() {
+        TouchPredictor predictor = predictorWith(16, 100, 0, 8, 16, 24);
+        predictor.reset();
+        predictor.addSample(100, 100);
+        predictor.addSample(108, 108);
+        assertEquals(0, predictor.getOffset(108), 0);
+        predictor.addSample(116, 116);
+        assertEquals(16, predictor.getOffset(116), DELTA);
+    }
+}